@@ -0,0 +1,172 @@
+package library;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Grades typed answers against the words of one lesson. By default an answer
+ * must match exactly, ignoring case. With typo tolerance turned on, accents
+ * are ignored and an answer may be a few edits away from the right word, as
+ * long as no other word in the lesson is at least as close to it, so a typo
+ * is accepted but a different word of the lesson never is. The lesson's words
+ * are kept in a BK-tree built once per lesson, so checking an answer only
+ * measures the distance to the few words that could be that close, not to
+ * every word of the lesson.
+ */
+public class AnswerMatcher {
+
+    /**
+     * Matcher for questions that don't know their lesson's words, so a typo
+     * is only compared with the right answer.
+     */
+    public static final AnswerMatcher EXPECTED_ONLY = new AnswerMatcher(new ArrayList<>());
+
+    private static volatile int typoTolerance = 0;
+
+    private Node root;
+
+    /**
+     * A word of the lesson in the BK-tree. Each child sits at a different
+     * edit distance from its parent.
+     */
+    private static class Node {
+
+        private final String term;
+        private final HashMap<Integer, Node> children;
+
+        private Node(String term) {
+            this.term = term;
+            this.children = new HashMap<>();
+        }
+    }
+
+    /**
+     * Builds the matcher for a lesson's words.
+     *
+     * @param words the lesson's words
+     */
+    public AnswerMatcher(List<Word> words) {
+        for (Word word : words) {
+            if (word.getForeignWord() != null) {
+                add(WordSearchIndex.fold(word.getForeignWord().trim()));
+            }
+        }
+    }
+
+    /**
+     * Sets how many edits a typed answer may be away from the right word.
+     * Zero turns typo tolerance off, so answers have to match exactly apart
+     * from case.
+     *
+     * @param maxEdits the number of edits allowed
+     */
+    public static void setTypoTolerance(int maxEdits) {
+        if (maxEdits < 0) {
+            throw new IllegalArgumentException("Typo tolerance must not be negative");
+        }
+        typoTolerance = maxEdits;
+    }
+
+    /**
+     * Returns how many edits a typed answer may be away from the right word.
+     *
+     * @return the number of edits allowed, zero if typo tolerance is off
+     */
+    public static int getTypoTolerance() {
+        return typoTolerance;
+    }
+
+    /**
+     * Checks a typed answer.
+     *
+     * @param expected the right answer
+     * @param answer the user's answer
+     * @return true if the answer counts as right
+     */
+    public boolean matches(String expected, String answer) {
+        if (expected == null || answer == null) {
+            return false;
+        }
+        int tolerance = typoTolerance;
+        if (tolerance == 0) {
+            return expected.equalsIgnoreCase(answer);
+        }
+
+        String folded = WordSearchIndex.fold(answer.trim());
+        String target = WordSearchIndex.fold(expected.trim());
+        if (folded.equals(target)) {
+            return true;
+        }
+        int distance = distance(folded, target);
+        if (distance > tolerance) {
+            return false;
+        }
+        // Not a typo if another word of the lesson is at least as close
+        return !hasOtherWithin(root, folded, target, distance);
+    }
+
+    private void add(String term) {
+        if (root == null) {
+            root = new Node(term);
+            return;
+        }
+        Node node = root;
+        while (true) {
+            int distance = distance(term, node.term);
+            if (distance == 0) {
+                return;
+            }
+            Node child = node.children.get(distance);
+            if (child == null) {
+                node.children.put(distance, new Node(term));
+                return;
+            }
+            node = child;
+        }
+    }
+
+    /**
+     * Checks if the tree holds a term other than the excluded one within the
+     * given distance of the query. Only children whose distance to their
+     * parent is within radius of the parent's distance to the query can hold
+     * such a term.
+     */
+    private static boolean hasOtherWithin(Node node, String query, String excluded, int radius) {
+        if (node == null) {
+            return false;
+        }
+        int distance = distance(query, node.term);
+        if (distance <= radius && !node.term.equals(excluded)) {
+            return true;
+        }
+        for (int childDistance = Math.max(1, distance - radius); childDistance <= distance + radius; childDistance++) {
+            if (hasOtherWithin(node.children.get(childDistance), query, excluded, radius)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the Levenshtein distance between two strings.
+     */
+    static int distance(String a, String b) {
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int substitution = previous[j - 1] + (a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1);
+                current[j] = Math.min(substitution, Math.min(previous[j], current[j - 1]) + 1);
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+}
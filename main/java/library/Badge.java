@@ -1,16 +1,15 @@
 package library;
-import java.util.ArrayList;
 import java.util.UUID;
 
 /**
  * @author Madeleine McBride
  * Represents a badge that can be awarded to a user in a language learning application.
+ * The badges that exist are kept in the BadgeList registry.
  */
 public class Badge {
     private String name;
     private String description;
     private UUID id;
-    public static ArrayList<Badge> badges = new ArrayList<>();
 
     /**
      * Constructs a Badge with the specified name and description.
@@ -26,18 +25,27 @@ public class Badge {
     }
 
     /**
-     * Adds a badge to the collection of badges.
+     * Constructs a Badge with a known identifier, such as one loaded from the
+     * badge file.
+     *
+     * @param id          the UUID of the badge
+     * @param name        the name of the badge
+     * @param description the description of the badge
+     */
+    public Badge(UUID id, String name, String description) {
+        this.id = id;
+        this.name = name;
+        this.description = description;
+    }
+
+    /**
+     * Adds a badge to the badge registry, writing it to the badge file.
      *
      * @param badge the badge to be added
+     * @return true if the badge is in the registry
      */
-    public static void addBadge(Badge badge) {
-        // Check for existing badge with the same UUID
-        for (Badge existingBadge : badges) {
-            if (existingBadge.getID().equals(badge.getID())) {
-                return; // If a duplicate badge is found, do not add
-            }
-        }
-        badges.add(badge); // Add if it's not a duplicate
+    public static boolean addBadge(Badge badge) {
+        return BadgeList.getInstance().addBadge(badge);
     }
 
     /**
@@ -67,12 +75,14 @@ public class Badge {
         return id;
     }
 
+    /**
+     * Returns the badge with the given UUID from the badge registry.
+     *
+     * @param id the UUID of the badge
+     * @return the badge, or null if there is no badge with that UUID
+     */
     public static Badge getBadgeByUUID(UUID id) {
-        for (Badge badge : badges){
-            if (badge.getID().equals(id))
-                return badge;
-        }
-        return null;
+        return BadgeList.getInstance().getBadgeByUUID(id);
     }
 
     /**
@@ -83,12 +93,15 @@ public class Badge {
     }
 
     /**
-     * Displays all badges in the collection.
+     * Displays all badges in the badge registry.
      */
     public static void displayBadges() {
-        for (Badge badge : badges) {
-            badge.displayBadge();
-        }
+        BadgeList.getInstance().displayBadges();
+    }
+
+    @Override
+    public String toString() {
+        return name;
     }
 
     /*public static void main(String[] args) {
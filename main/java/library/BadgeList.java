@@ -1,21 +1,33 @@
 package library;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
 import java.util.UUID;
 
 /**
- * Singleton class that manages a collection of badges.
+ * Singleton registry of every badge, loaded from the badge file. Each badge
+ * has an ordinal, its position in the registry, which is the bit that stands
+ * for it in a user's badge mask. Badges keep their ordinals as long as new
+ * badges are only ever added to the end of the badge file, so a badge added
+ * at runtime is written to the badge file before it gets its ordinal.
  * @author Madeleine McBride
  */
 public class BadgeList {
     // Static instance of the BadgeList (eager initialization)
     private static BadgeList instance = new BadgeList();
     
-    // List to store Badge objects
+    // List to store Badge objects, in ordinal order
     private ArrayList<Badge> badges;
+    private UUIDMap<Integer> ordinals;
 
     // Private constructor to prevent external instantiation
     private BadgeList() {
         badges = new ArrayList<>();
+        ordinals = new UUIDMap<>();
+        for (Badge badge : DataLoader.getBadges()) {
+            register(badge);
+        }
     }
 
     /**
@@ -28,18 +40,33 @@ public class BadgeList {
     }
 
     /**
-     * Adds a badge to the list.
+     * Adds a badge to the registry, giving it the next ordinal. The badge
+     * file is written first, so the ordinal is never handed out for a badge
+     * that would be gone, or at another position, after a restart.
      *
      * @param badge the badge to be added
+     * @return true if the badge is in the registry, false if the badge file
+     * couldn't be written
      */
-    public void addBadge(Badge badge) {
-        // Check if the badge's UUID already exists in the list
-        for (Badge existingBadge : badges) {
-            if (existingBadge.getID().equals(badge.getID())) {
-                return; // Do not add if a badge with the same UUID is already present
-            }
+    public synchronized boolean addBadge(Badge badge) {
+        // Do not add if a badge with the same UUID is already present
+        if (ordinals.containsKey(badge.getID())) {
+            return true;
+        }
+        ArrayList<Badge> saved = new ArrayList<>(badges);
+        saved.add(badge);
+        if (!DataWriter.saveBadges(saved)) {
+            return false;
+        }
+        register(badge);
+        return true;
+    }
+
+    private void register(Badge badge) {
+        if (!ordinals.containsKey(badge.getID())) {
+            ordinals.put(badge.getID(), badges.size());
+            badges.add(badge);
         }
-        badges.add(badge); // Add badge if it is not a duplicate
     }
 
     /**
@@ -48,31 +75,87 @@ public class BadgeList {
      * @param id the UUID of the badge
      * @return the badge with the specified UUID, or null if not found
      */
-    public Badge getBadgeByUUID(UUID id) {
-        for (Badge badge : badges) {
-            if (badge.getID().equals(id)) {
-                return badge;
-            }
+    public synchronized Badge getBadgeByUUID(UUID id) {
+        Integer ordinal = ordinals.get(id);
+        return ordinal == null ? null : badges.get(ordinal);
+    }
+
+    /**
+     * Returns the ordinal of a badge, the bit that stands for it in a badge
+     * mask.
+     *
+     * @param id the UUID of the badge
+     * @return the ordinal, or -1 if the badge isn't in the registry
+     */
+    public synchronized int getOrdinal(UUID id) {
+        Integer ordinal = ordinals.get(id);
+        return ordinal == null ? -1 : ordinal;
+    }
+
+    /**
+     * Returns the badges whose bits are set in a badge mask. Bits without a
+     * badge in the registry are skipped.
+     *
+     * @param mask the badge mask
+     * @return the badges, in ordinal order
+     */
+    public synchronized ArrayList<Badge> getBadges(BitSet mask) {
+        ArrayList<Badge> earned = new ArrayList<>(mask.cardinality());
+        for (int ordinal = mask.nextSetBit(0); ordinal >= 0 && ordinal < badges.size(); ordinal = mask.nextSetBit(ordinal + 1)) {
+            earned.add(badges.get(ordinal));
         }
-        return null;
+        return earned;
     }
 
     /**
      * Displays all badges in the list.
      */
-    public void displayBadges() {
+    public synchronized void displayBadges() {
         for (Badge badge : badges) {
             badge.displayBadge();
         }
     }
 
     /**
-     * Returns the list of badges (optional if you want access to the list directly).
+     * Returns the list of badges, in ordinal order.
      *
-     * @return the list of badges
+     * @return a copy of the list of badges, which can't be changed
      */
-    public ArrayList<Badge> getBadges() {
-        return badges;
+    public synchronized List<Badge> getBadges() {
+        return Collections.unmodifiableList(new ArrayList<>(badges));
     }
-}
 
+    /**
+     * Writes a badge mask as a hexadecimal string, bit 0 being the lowest bit.
+     *
+     * @param mask the badge mask
+     * @return the mask as hexadecimal
+     */
+    public static String encodeMask(BitSet mask) {
+        long[] words = mask.toLongArray();
+        if (words.length == 0) {
+            return "0";
+        }
+        StringBuilder hex = new StringBuilder(Long.toHexString(words[words.length - 1]));
+        for (int i = words.length - 2; i >= 0; i--) {
+            hex.append(String.format("%016x", words[i]));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * Reads a badge mask written by encodeMask.
+     *
+     * @param hex the mask as hexadecimal
+     * @return the badge mask
+     */
+    public static BitSet decodeMask(String hex) {
+        int wordCount = (hex.length() + 15) / 16;
+        long[] words = new long[wordCount];
+        for (int i = 0; i < wordCount; i++) {
+            int end = hex.length() - i * 16;
+            words[i] = Long.parseUnsignedLong(hex.substring(Math.max(0, end - 16), end), 16);
+        }
+        return BitSet.valueOf(words);
+    }
+}
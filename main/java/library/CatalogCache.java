@@ -0,0 +1,177 @@
+package library;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Singleton that keeps lazily loaded lesson lists under a memory budget. The
+ * budget is counted in words, since the words make up almost all of a
+ * lesson list's memory. When a newly loaded lesson list puts the cache over
+ * budget, the least recently used lesson lists are unloaded; they are read
+ * from the catalog image again the next time they are used.
+ *
+ * Recency is approximate. Every load starts a new epoch, and using a lesson
+ * list only stamps it with the current epoch, which takes no lock. Lesson
+ * lists are unloaded oldest stamp first, so lists used in the same epoch
+ * are unloaded in no particular order.
+ */
+public class CatalogCache {
+
+    private static final int DEFAULT_WORD_BUDGET = 10000;
+
+    private static CatalogCache catalogCache;
+
+    private ConcurrentHashMap<LessonList, Entry> loaded;
+    private volatile long epoch;
+    private int wordBudget;
+    private int wordCount;
+
+    /**
+     * The size of a loaded lesson list and the epoch it was last used in.
+     */
+    private static class Entry {
+
+        private final int words;
+        private volatile long lastUsed;
+
+        private Entry(int words, long lastUsed) {
+            this.words = words;
+            this.lastUsed = lastUsed;
+        }
+    }
+
+    /**
+     * A loaded lesson list with the stamp it had when eviction started. The
+     * stamp is copied so the sort sees values that don't change under it.
+     */
+    private static class Candidate {
+
+        private final LessonList lessonList;
+        private final int words;
+        private final long lastUsed;
+
+        private Candidate(LessonList lessonList, Entry entry) {
+            this.lessonList = lessonList;
+            this.words = entry.words;
+            this.lastUsed = entry.lastUsed;
+        }
+    }
+
+    private CatalogCache() {
+        loaded = new ConcurrentHashMap<>();
+        wordBudget = DEFAULT_WORD_BUDGET;
+    }
+
+    /**
+     * Returns the singleton instance of CatalogCache, creating it if
+     * necessary.
+     *
+     * @return The singleton instance of CatalogCache.
+     */
+    public static synchronized CatalogCache getInstance() {
+        if (catalogCache == null) {
+            catalogCache = new CatalogCache();
+        }
+        return catalogCache;
+    }
+
+    /**
+     * Sets how many words may be held by loaded lesson lists before the least
+     * recently used ones are unloaded.
+     *
+     * @param wordBudget the word budget
+     */
+    public void setWordBudget(int wordBudget) {
+        if (wordBudget <= 0) {
+            throw new IllegalArgumentException("Word budget must be positive");
+        }
+        ArrayList<LessonList> evicted;
+        synchronized (this) {
+            this.wordBudget = wordBudget;
+            evicted = evict(null);
+        }
+        unload(evicted);
+    }
+
+    /**
+     * Returns the word budget.
+     *
+     * @return the word budget
+     */
+    public synchronized int getWordBudget() {
+        return wordBudget;
+    }
+
+    /**
+     * Returns the number of words held by loaded lesson lists.
+     *
+     * @return the cached word count
+     */
+    public synchronized int getWordCount() {
+        return wordCount;
+    }
+
+    /**
+     * Records that a lesson list was loaded, unloading the least recently
+     * used lesson lists if the cache is now over budget.
+     *
+     * @param lessonList the lesson list that was loaded
+     * @param words the number of words in the lesson list
+     */
+    void added(LessonList lessonList, int words) {
+        ArrayList<LessonList> evicted;
+        synchronized (this) {
+            Entry previous = loaded.put(lessonList, new Entry(words, ++epoch));
+            wordCount += words - (previous == null ? 0 : previous.words);
+            evicted = evict(lessonList);
+        }
+        // Unloaded outside the cache lock, a lesson list locks itself while loading
+        unload(evicted);
+    }
+
+    /**
+     * Records that a loaded lesson list was used. Called on every use, so it
+     * only stamps the lesson list with the current epoch and takes no lock.
+     *
+     * @param lessonList the lesson list that was used
+     */
+    void touched(LessonList lessonList) {
+        Entry entry = loaded.get(lessonList);
+        long current = epoch;
+        if (entry != null && entry.lastUsed != current) {
+            entry.lastUsed = current;
+        }
+    }
+
+    private ArrayList<LessonList> evict(LessonList keep) {
+        ArrayList<LessonList> evicted = new ArrayList<>();
+        if (wordCount <= wordBudget) {
+            return evicted;
+        }
+        // Learners keep stamping entries while this runs, so sort a copy of the stamps
+        ArrayList<Candidate> oldestFirst = new ArrayList<>(loaded.size());
+        for (Map.Entry<LessonList, Entry> entry : loaded.entrySet()) {
+            oldestFirst.add(new Candidate(entry.getKey(), entry.getValue()));
+        }
+        oldestFirst.sort(Comparator.comparingLong(candidate -> candidate.lastUsed));
+        for (Candidate candidate : oldestFirst) {
+            if (wordCount <= wordBudget) {
+                break;
+            }
+            if (candidate.lessonList != keep) {
+                wordCount -= candidate.words;
+                evicted.add(candidate.lessonList);
+                loaded.remove(candidate.lessonList);
+            }
+        }
+        return evicted;
+    }
+
+    private void unload(ArrayList<LessonList> evicted) {
+        for (LessonList lessonList : evicted) {
+            lessonList.unload();
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package library;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Compiles the language catalog into the compact binary image read by
+ * CatalogImage. UUIDs are stored as two longs, every string is stored once in
+ * a shared string table, and each language, unit and lesson record starts
+ * with the offsets of its children so any part of the catalog can be read
+ * without reading the parts before it.
+ *
+ * Layout (big endian):
+ * <pre>
+ * header   magic, version, checksum(long), sourceSize(long), sourceModified(long),
+ *          stringTableOffset, languageCount, languageOffsets[]
+ * language enumName, name, unitCount, unitOffsets[]
+ * unit     id(2 longs), name, number, lessonCount, lessonOffsets[]
+ * lesson   id(2 longs), name, number, wordCount, words[]
+ * word     id(2 longs), text, translation, partOfSpeech, exampleSentence
+ * strings  count, offsets[], then (byteLength, UTF-8 bytes) per string
+ * </pre>
+ * Strings are stored as indexes into the string table, -1 meaning null. The
+ * size and modification time of the JSON file are kept next to its checksum,
+ * so the JSON file only has to be read again when one of them changes.
+ */
+public class CatalogCompiler {
+
+    public static final int MAGIC = 0x43415431;
+    public static final int VERSION = 2;
+    public static final int NULL_STRING = -1;
+    public static final int WORD_RECORD_SIZE = 32;
+
+    private static final int HEADER_SOURCE_SIZE = 16;
+    private static final int HEADER_SOURCE_MODIFIED = 24;
+
+    private ByteBuffer buffer;
+    private LinkedHashMap<String, Integer> strings;
+
+    private CatalogCompiler() {
+        buffer = ByteBuffer.allocate(1 << 16);
+        strings = new LinkedHashMap<>();
+    }
+
+    /**
+     * Compiles the given languages and writes the image to a file. The image
+     * is written to a temporary file next to it and renamed over the old
+     * image, so a crash while writing never leaves a torn image that still
+     * has a valid header and checksum.
+     *
+     * @param languages the languages to compile
+     * @param checksum checksum of the JSON file the languages were loaded from
+     * @param sourceSize size of the JSON file
+     * @param sourceModified modification time of the JSON file
+     * @param fileName the file the image is written to
+     * @throws IOException if the image can't be written
+     */
+    public static void compile(ArrayList<Language> languages, long checksum, long sourceSize, long sourceModified,
+            String fileName) throws IOException {
+        byte[] image = new CatalogCompiler().compile(languages, checksum, sourceSize, sourceModified);
+        write(image, fileName);
+    }
+
+    /**
+     * Records a new size and modification time of the JSON file in an image
+     * whose checksum still matches it, such as after the file was touched or
+     * copied. The image is rewritten the same way as by compile.
+     *
+     * @param fileName the image file
+     * @param sourceSize size of the JSON file
+     * @param sourceModified modification time of the JSON file
+     * @throws IOException if the image can't be read or written
+     */
+    public static void restamp(String fileName, long sourceSize, long sourceModified) throws IOException {
+        ByteBuffer image = ByteBuffer.wrap(Files.readAllBytes(new File(fileName).toPath()));
+        image.putLong(HEADER_SOURCE_SIZE, sourceSize);
+        image.putLong(HEADER_SOURCE_MODIFIED, sourceModified);
+        write(image.array(), fileName);
+    }
+
+    private static void write(byte[] image, String fileName) throws IOException {
+        File file = new File(fileName);
+        File temp = new File(fileName + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(temp)) {
+            out.write(image);
+            out.getFD().sync();
+        }
+        try {
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private byte[] compile(ArrayList<Language> languages, long checksum, long sourceSize, long sourceModified) {
+        putInt(MAGIC);
+        putInt(VERSION);
+        putLong(checksum);
+        putLong(sourceSize);
+        putLong(sourceModified);
+        int stringTableSlot = reserve(1);
+        putInt(languages.size());
+        int languageSlots = reserve(languages.size());
+
+        for (int i = 0; i < languages.size(); i++) {
+            patch(languageSlots, i, buffer.position());
+            putLanguage(languages.get(i));
+        }
+
+        patch(stringTableSlot, 0, buffer.position());
+        putStringTable();
+
+        byte[] image = new byte[buffer.position()];
+        buffer.flip();
+        buffer.get(image);
+        return image;
+    }
+
+    private void putLanguage(Language language) {
+        putString(language.getLanguageEnum().name());
+        putString(language.getLanguageName());
+        List<Unit> units = language.getUnits();
+        putInt(units.size());
+        int unitSlots = reserve(units.size());
+
+        for (int i = 0; i < units.size(); i++) {
+            patch(unitSlots, i, buffer.position());
+            putUnit(units.get(i));
+        }
+    }
+
+    private void putUnit(Unit unit) {
+        putUUID(unit.getId());
+        putString(unit.getUnitName());
+        putInt(unit.getUnitNumber());
+        List<Lesson> lessons = unit.getLessons();
+        putInt(lessons.size());
+        int lessonSlots = reserve(lessons.size());
+
+        for (int i = 0; i < lessons.size(); i++) {
+            patch(lessonSlots, i, buffer.position());
+            putLesson(lessons.get(i));
+        }
+    }
+
+    private void putLesson(Lesson lesson) {
+        putUUID(lesson.getId());
+        putString(lesson.getLessonName());
+        putInt(lesson.getLessonNumber());
+        List<Word> words = lesson.getWords();
+        putInt(words.size());
+
+        for (Word word : words) {
+            putUUID(word.getId());
+            putString(word.getForeignWord());
+            putString(word.getTranslatedWord());
+            putString(word.getPartofSpeech());
+            putString(word.getExampleSentence());
+        }
+    }
+
+    private void putStringTable() {
+        ArrayList<byte[]> encoded = new ArrayList<>();
+        for (String string : strings.keySet()) {
+            encoded.add(string.getBytes(StandardCharsets.UTF_8));
+        }
+
+        putInt(encoded.size());
+        int offsetSlots = reserve(encoded.size());
+        for (int i = 0; i < encoded.size(); i++) {
+            patch(offsetSlots, i, buffer.position());
+            byte[] bytes = encoded.get(i);
+            putInt(bytes.length);
+            ensureCapacity(bytes.length);
+            buffer.put(bytes);
+        }
+    }
+
+    private void putString(String string) {
+        if (string == null) {
+            putInt(NULL_STRING);
+            return;
+        }
+        Integer index = strings.get(string);
+        if (index == null) {
+            index = strings.size();
+            strings.put(string, index);
+        }
+        putInt(index);
+    }
+
+    private void putUUID(UUID id) {
+        putLong(id == null ? 0 : id.getMostSignificantBits());
+        putLong(id == null ? 0 : id.getLeastSignificantBits());
+    }
+
+    private void putInt(int value) {
+        ensureCapacity(Integer.BYTES);
+        buffer.putInt(value);
+    }
+
+    private void putLong(long value) {
+        ensureCapacity(Long.BYTES);
+        buffer.putLong(value);
+    }
+
+    /**
+     * Reserves space for a number of int offsets that are filled in later.
+     *
+     * @return the position of the first reserved int
+     */
+    private int reserve(int count) {
+        int position = buffer.position();
+        for (int i = 0; i < count; i++) {
+            putInt(0);
+        }
+        return position;
+    }
+
+    private void patch(int slots, int index, int value) {
+        buffer.putInt(slots + index * Integer.BYTES, value);
+    }
+
+    private void ensureCapacity(int bytes) {
+        if (buffer.remaining() < bytes) {
+            ByteBuffer grown = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes));
+            buffer.flip();
+            grown.put(buffer);
+            buffer = grown;
+        }
+    }
+}
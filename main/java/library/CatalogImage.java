@@ -0,0 +1,329 @@
+package library;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.CRC32;
+
+/**
+ * Read-only view of a catalog image written by CatalogCompiler. The image is
+ * memory mapped rather than read, and strings are only decoded the first time
+ * they are used, so opening the catalog costs almost nothing compared to
+ * parsing the language JSON file. The languages built from the image are
+ * lazy: a language's units are read the first time they are used, and a
+ * unit's lessons and words are read the first time they are used and kept
+ * under the CatalogCache's memory budget.
+ */
+public class CatalogImage extends DataConstants {
+
+    private static final int HEADER_CHECKSUM = 8;
+    private static final int HEADER_SOURCE_SIZE = 16;
+    private static final int HEADER_SOURCE_MODIFIED = 24;
+    private static final int HEADER_STRING_TABLE = 32;
+    private static final int HEADER_LANGUAGE_COUNT = 36;
+    private static final int HEADER_LANGUAGES = 40;
+
+    private MappedByteBuffer image;
+    private int stringTableOffset;
+    private String[] strings;
+
+    private CatalogImage(MappedByteBuffer image) {
+        this.image = image;
+        this.stringTableOffset = image.getInt(HEADER_STRING_TABLE);
+        this.strings = new String[image.getInt(stringTableOffset)];
+    }
+
+    /**
+     * Loads the languages from the compiled catalog image. The image is
+     * compiled again from the language JSON file whenever the JSON file's
+     * checksum no longer matches the one recorded in the image. The JSON
+     * file is only read to work out its checksum when its size or
+     * modification time differ from those recorded in the image, so an
+     * unchanged catalog opens without reading it. The catalog indexes are
+     * rebuilt for the loaded languages.
+     *
+     * @return An ArrayList of Language objects.
+     */
+    public static ArrayList<Language> loadLanguages() {
+        if (isJUnitTest()) {
+            return indexed(null, DataLoader.getLanguages());
+        }
+
+        try {
+            File source = new File(LANGUAGE_FILE_NAME);
+            long sourceSize = source.length();
+            long sourceModified = source.lastModified();
+            CatalogImage image = open(LANGUAGE_IMAGE_FILE_NAME);
+            if (image != null && image.getSourceSize() == sourceSize && image.getSourceModified() == sourceModified) {
+                return indexed(image, image.getLanguages());
+            }
+
+            long checksum = checksum(LANGUAGE_FILE_NAME);
+            if (image != null && image.getChecksum() == checksum) {
+                // Touched but not changed, record it so the next start skips the checksum
+                try {
+                    CatalogCompiler.restamp(LANGUAGE_IMAGE_FILE_NAME, sourceSize, sourceModified);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+                return indexed(image, image.getLanguages());
+            }
+
+            // Image is missing or out of date, parse the JSON and compile it again
+            ArrayList<Language> languages = DataLoader.getLanguages(ForkJoinPool.commonPool());
+            if (languages != null) {
+                CatalogCompiler.compile(languages, checksum, sourceSize, sourceModified, LANGUAGE_IMAGE_FILE_NAME);
+            }
+            return indexed(null, languages);
+
+        } catch (IOException | RuntimeException e) {
+            e.printStackTrace();
+        }
+
+        return indexed(null, DataLoader.getLanguages());
+    }
+
+    /**
+     * Rebuilds the catalog indexes for the loaded languages in a single
+     * walk, of the image if there is one so lazy languages stay unloaded.
+     */
+    private static ArrayList<Language> indexed(CatalogImage image, ArrayList<Language> languages) {
+        if (languages == null) {
+            return null;
+        }
+        CatalogVisitor indexes = CatalogVisitor.all(CatalogIndex.getInstance(), WordSearchIndex.getInstance(),
+                TranslationIndex.getInstance());
+        if (image != null) {
+            image.walk(indexes);
+        } else {
+            CatalogVisitor.walk(languages, indexes);
+        }
+        return languages;
+    }
+
+    /**
+     * Maps a catalog image into memory.
+     *
+     * @param fileName the image file
+     * @return the image, or null if the file is missing or isn't a catalog
+     * image of this version
+     * @throws IOException if the file can't be mapped
+     */
+    public static CatalogImage open(String fileName) throws IOException {
+        File file = new File(fileName);
+        if (!file.exists() || file.length() < HEADER_LANGUAGES) {
+            return null;
+        }
+
+        MappedByteBuffer image;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            image = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (image.getInt(0) != CatalogCompiler.MAGIC || image.getInt(4) != CatalogCompiler.VERSION) {
+            return null;
+        }
+        return new CatalogImage(image);
+    }
+
+    /**
+     * Returns the CRC32 checksum of a file.
+     *
+     * @param fileName the file
+     * @return the checksum
+     * @throws IOException if the file can't be read
+     */
+    public static long checksum(String fileName) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(Files.readAllBytes(Paths.get(fileName)));
+        return crc.getValue();
+    }
+
+    /**
+     * Returns the checksum of the JSON file the image was compiled from.
+     *
+     * @return the checksum
+     */
+    public long getChecksum() {
+        return image.getLong(HEADER_CHECKSUM);
+    }
+
+    /**
+     * Returns the size of the JSON file the image was compiled from.
+     *
+     * @return the size in bytes
+     */
+    public long getSourceSize() {
+        return image.getLong(HEADER_SOURCE_SIZE);
+    }
+
+    /**
+     * Returns the modification time of the JSON file the image was compiled
+     * from.
+     *
+     * @return the modification time, in milliseconds since the epoch
+     */
+    public long getSourceModified() {
+        return image.getLong(HEADER_SOURCE_MODIFIED);
+    }
+
+    /**
+     * Returns the number of languages in the image.
+     *
+     * @return the language count
+     */
+    public int getLanguageCount() {
+        return image.getInt(HEADER_LANGUAGE_COUNT);
+    }
+
+    /**
+     * Builds the Language objects stored in the image. Only the languages
+     * themselves are read, their units and lessons are read on demand.
+     *
+     * @return An ArrayList of Language objects.
+     */
+    public ArrayList<Language> getLanguages() {
+        int count = getLanguageCount();
+        ArrayList<Language> languages = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            languages.add(readLanguage(image.getInt(HEADER_LANGUAGES + i * Integer.BYTES)));
+        }
+        return languages;
+    }
+
+    /**
+     * Walks every unit, lesson and word in the image. Only the words are
+     * built as objects, for the visitor; the languages, units and lessons
+     * handed out by getLanguages aren't touched. The words' strings are
+     * decoded without being kept in the string table, so a walk leaves
+     * the table as it found it. Use CatalogVisitor.all to build several
+     * indexes from one walk.
+     *
+     * @param visitor the visitor
+     */
+    public void walk(CatalogVisitor visitor) {
+        visitor.startCatalog();
+        for (int i = 0; i < getLanguageCount(); i++) {
+            int languageOffset = image.getInt(HEADER_LANGUAGES + i * Integer.BYTES);
+            LanguagesEnum languageEnum = LanguagesEnum.valueOf(getString(image.getInt(languageOffset)));
+            int unitCount = image.getInt(languageOffset + 8);
+            for (int unit = 0; unit < unitCount; unit++) {
+                int unitOffset = image.getInt(languageOffset + 12 + unit * Integer.BYTES);
+                visitor.visitUnit(languageEnum, unit, getUUID(unitOffset));
+                int lessonCount = image.getInt(unitOffset + 24);
+                for (int lesson = 0; lesson < lessonCount; lesson++) {
+                    int lessonOffset = image.getInt(unitOffset + 28 + lesson * Integer.BYTES);
+                    visitor.visitLesson(languageEnum, unit, lesson, getUUID(lessonOffset));
+                    int wordCount = image.getInt(lessonOffset + 24);
+                    for (int word = 0; word < wordCount; word++) {
+                        Word visited = readWord(lessonOffset + 28 + word * CatalogCompiler.WORD_RECORD_SIZE, false);
+                        visitor.visitWord(languageEnum, unit, lesson, word, visited);
+                    }
+                }
+            }
+        }
+        visitor.endCatalog();
+    }
+
+    private Language readLanguage(int offset) {
+        LanguagesEnum languageEnum = LanguagesEnum.valueOf(getString(image.getInt(offset)));
+        String languageName = getString(image.getInt(offset + 4));
+        return new Language(languageEnum, languageName, new UnitList(unitList -> readUnits(offset, unitList)));
+    }
+
+    private ArrayList<Unit> readUnits(int languageOffset, UnitList unitList) {
+        int unitCount = image.getInt(languageOffset + 8);
+        ArrayList<Unit> units = new ArrayList<>(unitCount);
+        for (int i = 0; i < unitCount; i++) {
+            units.add(readUnit(image.getInt(languageOffset + 12 + i * Integer.BYTES), unitList));
+        }
+        return units;
+    }
+
+    private Unit readUnit(int offset, UnitList unitList) {
+        UUID unitID = getUUID(offset);
+        String unitName = getString(image.getInt(offset + 16));
+        int unitNumber = image.getInt(offset + 20);
+        return new Unit(unitID, unitName, unitNumber, new LessonList(() -> readLessons(offset)), unitList);
+    }
+
+    private ArrayList<Lesson> readLessons(int unitOffset) {
+        int lessonCount = image.getInt(unitOffset + 24);
+        ArrayList<Lesson> lessons = new ArrayList<>(lessonCount);
+        for (int i = 0; i < lessonCount; i++) {
+            lessons.add(readLesson(image.getInt(unitOffset + 28 + i * Integer.BYTES)));
+        }
+        return lessons;
+    }
+
+    private Lesson readLesson(int offset) {
+        UUID lessonID = getUUID(offset);
+        String lessonName = getString(image.getInt(offset + 16));
+        int lessonNumber = image.getInt(offset + 20);
+        int wordCount = image.getInt(offset + 24);
+
+        ArrayList<Word> words = new ArrayList<>(wordCount);
+        for (int i = 0; i < wordCount; i++) {
+            words.add(readWord(offset + 28 + i * CatalogCompiler.WORD_RECORD_SIZE, true));
+        }
+        return new Lesson(lessonID, lessonName, lessonNumber, new WordList(words));
+    }
+
+    /**
+     * Reads a word record.
+     *
+     * @param keepStrings whether newly decoded strings are kept in the
+     * string table for the next time they are used
+     */
+    private Word readWord(int offset, boolean keepStrings) {
+        UUID wordID = getUUID(offset);
+        String text = getString(image.getInt(offset + 16), keepStrings);
+        String translation = getString(image.getInt(offset + 20), keepStrings);
+        String partOfSpeech = getString(image.getInt(offset + 24), keepStrings);
+        String exampleSentence = getString(image.getInt(offset + 28), keepStrings);
+        return new Word(wordID, text, translation, partOfSpeech, exampleSentence);
+    }
+
+    private UUID getUUID(int offset) {
+        long mostSignificant = image.getLong(offset);
+        long leastSignificant = image.getLong(offset + 8);
+        if (mostSignificant == 0 && leastSignificant == 0) {
+            return null;
+        }
+        return new UUID(mostSignificant, leastSignificant);
+    }
+
+    /**
+     * Returns a string from the string table, decoding it the first time it
+     * is asked for. Takes no lock: threads that ask for a new string at the
+     * same time may each decode it, and the last one stored is kept. Strings
+     * are immutable, so a string read from the table is always whole.
+     */
+    private String getString(int index) {
+        return getString(index, true);
+    }
+
+    private String getString(int index, boolean keep) {
+        if (index == CatalogCompiler.NULL_STRING) {
+            return null;
+        }
+        String string = strings[index];
+        if (string == null) {
+            int offset = image.getInt(stringTableOffset + Integer.BYTES + index * Integer.BYTES);
+            byte[] bytes = new byte[image.getInt(offset)];
+            image.get(offset + Integer.BYTES, bytes);
+            string = new String(bytes, StandardCharsets.UTF_8);
+            if (keep) {
+                strings[index] = string;
+            }
+        }
+        return string;
+    }
+}
@@ -0,0 +1,221 @@
+package library;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Singleton index of every unit, lesson and word in the catalog by id. The
+ * index is built once when the catalog is loaded and records where each id
+ * sits in the catalog (its language and its position in each parent list)
+ * rather than the objects themselves, since lazily loaded lessons and words
+ * may be unloaded and read again as new objects. The unit and lesson lists
+ * use it to turn an id into a list position without scanning. It also keeps
+ * the ids of each language's units and lessons in course order, so the
+ * CourseGraph can be built without loading any lessons.
+ *
+ * A walk fills new tables that only the walking thread sees, and they
+ * replace the published tables when the walk ends. Published tables are
+ * never changed again, so lookups read them without locking.
+ */
+public class CatalogIndex implements CatalogVisitor {
+
+    private volatile Tables tables;
+    private Tables building;
+
+    /**
+     * Holds the index, made the first time it is asked for
+     */
+    private static class Holder {
+
+        private static final CatalogIndex INSTANCE = new CatalogIndex();
+    }
+
+    /**
+     * The positions of every unit, lesson and word of one walk of the
+     * catalog, and the ids of each language's lessons by unit.
+     */
+    private static class Tables {
+
+        private final UUIDMap<Position> units = new UUIDMap<>();
+        private final UUIDMap<Position> lessons = new UUIDMap<>();
+        private final UUIDMap<Position> words = new UUIDMap<>();
+        private final EnumMap<LanguagesEnum, List<UUID>> unitIds = new EnumMap<>(LanguagesEnum.class);
+        private final EnumMap<LanguagesEnum, List<List<UUID>>> lessonIds = new EnumMap<>(LanguagesEnum.class);
+        // The language being walked, null if it is a repeat of one already walked
+        private LanguagesEnum outlining;
+        private LanguagesEnum lastLanguage;
+    }
+
+    private CatalogIndex() {
+        tables = new Tables();
+    }
+
+    /**
+     * Returns the singleton instance of CatalogIndex.
+     *
+     * @return The singleton instance of CatalogIndex.
+     */
+    public static CatalogIndex getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Where an id sits in the catalog. Positions that don't apply to the
+     * kind of id (the lesson and word of a unit, the word of a lesson) are -1.
+     */
+    public static class Position {
+
+        private final LanguagesEnum language;
+        private final int unit;
+        private final int lesson;
+        private final int word;
+
+        Position(LanguagesEnum language, int unit, int lesson, int word) {
+            this.language = language;
+            this.unit = unit;
+            this.lesson = lesson;
+            this.word = word;
+        }
+
+        public LanguagesEnum getLanguage() {
+            return language;
+        }
+
+        public int getUnit() {
+            return unit;
+        }
+
+        public int getLesson() {
+            return lesson;
+        }
+
+        public int getWord() {
+            return word;
+        }
+    }
+
+    /**
+     * Returns where a unit sits in the catalog.
+     *
+     * @param unitId the unit's id
+     * @return the unit's position, or null if it isn't in the catalog
+     */
+    public Position getUnitPosition(UUID unitId) {
+        return tables.units.get(unitId);
+    }
+
+    /**
+     * Returns where a lesson sits in the catalog.
+     *
+     * @param lessonId the lesson's id
+     * @return the lesson's position, or null if it isn't in the catalog
+     */
+    public Position getLessonPosition(UUID lessonId) {
+        return tables.lessons.get(lessonId);
+    }
+
+    /**
+     * Returns where a word sits in the catalog.
+     *
+     * @param wordId the word's id
+     * @return the word's position, or null if it isn't in the catalog
+     */
+    public Position getWordPosition(UUID wordId) {
+        return tables.words.get(wordId);
+    }
+
+    /**
+     * Returns the ids of a language's units, in course order.
+     *
+     * @param language the language
+     * @return the unit ids, empty if the language isn't in the catalog
+     */
+    public List<UUID> getUnitIds(LanguagesEnum language) {
+        List<UUID> ids = tables.unitIds.get(language);
+        return ids == null ? Collections.emptyList() : ids;
+    }
+
+    /**
+     * Returns the ids of the lessons of one of a language's units, in course
+     * order.
+     *
+     * @param language the language
+     * @param unit the unit's position in the language
+     * @return the lesson ids, empty if there is no such unit
+     */
+    public List<UUID> getLessonIds(LanguagesEnum language, int unit) {
+        List<List<UUID>> units = tables.lessonIds.get(language);
+        if (units == null || unit < 0 || unit >= units.size()) {
+            return Collections.emptyList();
+        }
+        return units.get(unit);
+    }
+
+    /**
+     * Starts new tables for a walk of the catalog. Lookups keep reading the
+     * published tables until the walk ends.
+     */
+    @Override
+    public void startCatalog() {
+        building = new Tables();
+    }
+
+    /**
+     * Publishes the tables filled by the walk.
+     */
+    @Override
+    public void endCatalog() {
+        for (LanguagesEnum language : building.unitIds.keySet()) {
+            building.unitIds.put(language, Collections.unmodifiableList(building.unitIds.get(language)));
+            List<List<UUID>> units = building.lessonIds.get(language);
+            for (int unit = 0; unit < units.size(); unit++) {
+                units.set(unit, Collections.unmodifiableList(units.get(unit)));
+            }
+            building.lessonIds.put(language, Collections.unmodifiableList(units));
+        }
+        tables = building;
+        building = null;
+    }
+
+    // An id that appears twice resolves to its first occurrence, as a scan would
+
+    @Override
+    public void visitUnit(LanguagesEnum language, int unit, UUID unitId) {
+        if (unitId != null) {
+            building.units.putIfAbsent(unitId, new Position(language, unit, -1, -1));
+        }
+        if (language != building.lastLanguage) {
+            // A language listed twice keeps the course of its first entry
+            building.lastLanguage = language;
+            building.outlining = building.unitIds.containsKey(language) ? null : language;
+            if (building.outlining != null) {
+                building.unitIds.put(language, new ArrayList<>());
+                building.lessonIds.put(language, new ArrayList<>());
+            }
+        }
+        if (building.outlining != null) {
+            building.unitIds.get(language).add(unitId);
+            building.lessonIds.get(language).add(new ArrayList<>());
+        }
+    }
+
+    @Override
+    public void visitLesson(LanguagesEnum language, int unit, int lesson, UUID lessonId) {
+        if (lessonId != null) {
+            building.lessons.putIfAbsent(lessonId, new Position(language, unit, lesson, -1));
+        }
+        if (building.outlining != null) {
+            building.lessonIds.get(language).get(unit).add(lessonId);
+        }
+    }
+
+    @Override
+    public void visitWord(LanguagesEnum language, int unit, int lesson, int position, Word word) {
+        if (word.getId() != null) {
+            building.words.putIfAbsent(word.getId(), new Position(language, unit, lesson, position));
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package library;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Receives every unit, lesson and word of the catalog, in catalog order,
+ * along with where each sits in its parent lists. The catalog indexes are
+ * built this way, from the catalog image without building the catalog
+ * objects (see CatalogImage.walk), or from languages already in memory.
+ */
+public interface CatalogVisitor {
+
+    /**
+     * Called before the first unit of a walk.
+     */
+    default void startCatalog() {
+    }
+
+    /**
+     * Called after the last word of a walk.
+     */
+    default void endCatalog() {
+    }
+
+    /**
+     * Called for every unit.
+     *
+     * @param language the unit's language
+     * @param unit the unit's position in its language
+     * @param unitId the unit's id
+     */
+    default void visitUnit(LanguagesEnum language, int unit, UUID unitId) {
+    }
+
+    /**
+     * Called for every lesson, after its unit.
+     *
+     * @param language the lesson's language
+     * @param unit the position of the lesson's unit
+     * @param lesson the lesson's position in its unit
+     * @param lessonId the lesson's id
+     */
+    default void visitLesson(LanguagesEnum language, int unit, int lesson, UUID lessonId) {
+    }
+
+    /**
+     * Called for every word, after its lesson.
+     *
+     * @param language the word's language
+     * @param unit the position of the word's unit
+     * @param lesson the position of the word's lesson
+     * @param position the word's position in its lesson
+     * @param word the word
+     */
+    default void visitWord(LanguagesEnum language, int unit, int lesson, int position, Word word) {
+    }
+
+    /**
+     * Returns a visitor that hands everything it receives to each of the
+     * given visitors in turn, so several indexes are built in one walk.
+     *
+     * @param visitors the visitors
+     * @return the combined visitor
+     */
+    static CatalogVisitor all(CatalogVisitor... visitors) {
+        return new CatalogVisitor() {
+            @Override
+            public void startCatalog() {
+                for (CatalogVisitor visitor : visitors) {
+                    visitor.startCatalog();
+                }
+            }
+
+            @Override
+            public void endCatalog() {
+                for (CatalogVisitor visitor : visitors) {
+                    visitor.endCatalog();
+                }
+            }
+
+            @Override
+            public void visitUnit(LanguagesEnum language, int unit, UUID unitId) {
+                for (CatalogVisitor visitor : visitors) {
+                    visitor.visitUnit(language, unit, unitId);
+                }
+            }
+
+            @Override
+            public void visitLesson(LanguagesEnum language, int unit, int lesson, UUID lessonId) {
+                for (CatalogVisitor visitor : visitors) {
+                    visitor.visitLesson(language, unit, lesson, lessonId);
+                }
+            }
+
+            @Override
+            public void visitWord(LanguagesEnum language, int unit, int lesson, int position, Word word) {
+                for (CatalogVisitor visitor : visitors) {
+                    visitor.visitWord(language, unit, lesson, position, word);
+                }
+            }
+        };
+    }
+
+    /**
+     * Walks languages that are already in memory. Every lesson is read, so
+     * lazy languages should be walked from their catalog image instead.
+     *
+     * @param languages the languages to walk
+     * @param visitor the visitor
+     */
+    static void walk(ArrayList<Language> languages, CatalogVisitor visitor) {
+        visitor.startCatalog();
+        for (Language language : languages) {
+            LanguagesEnum languageEnum = language.getLanguageEnum();
+            List<Unit> units = language.getUnits();
+            for (int unit = 0; unit < units.size(); unit++) {
+                visitor.visitUnit(languageEnum, unit, units.get(unit).getId());
+                List<Lesson> lessons = units.get(unit).getLessons();
+                for (int lesson = 0; lesson < lessons.size(); lesson++) {
+                    visitor.visitLesson(languageEnum, unit, lesson, lessons.get(lesson).getId());
+                    List<Word> words = lessons.get(lesson).getWords();
+                    for (int word = 0; word < words.size(); word++) {
+                        visitor.visitWord(languageEnum, unit, lesson, word, words.get(word));
+                    }
+                }
+            }
+        }
+        visitor.endCatalog();
+    }
+}
@@ -0,0 +1,164 @@
+package library;
+
+import java.util.UUID;
+
+/**
+ * A learner's place in a language's course. The units and lessons of the
+ * course are shared by every learner, so where a learner is in them is kept
+ * here, in an object owned by the learner, instead of in the unit and lesson
+ * lists. The cursor moves through the language's CourseGraph, so each move is
+ * a single array step.
+ */
+public class CourseCursor {
+
+    private final Language language;
+    private final CourseGraph courseGraph;
+    private int ordinal;
+
+    /**
+     * Places a cursor at a lesson. If the lesson isn't in the course, the
+     * cursor is placed at the first lesson of the unit instead.
+     *
+     * @param language the language of the course
+     * @param unitId the id of the unit, may be null
+     * @param lessonId the id of the lesson, may be null
+     */
+    public CourseCursor(Language language, UUID unitId, UUID lessonId) {
+        this.language = language;
+        this.courseGraph = language.getCourseGraph();
+        int lessonOrdinal = courseGraph.getOrdinal(lessonId);
+        this.ordinal = lessonOrdinal != CourseGraph.NONE ? lessonOrdinal : courseGraph.getUnitStart(unitId);
+    }
+
+    /**
+     * Returns the ordinal of the lesson the cursor is at.
+     *
+     * @return the ordinal, or CourseGraph.NONE if the cursor isn't in the
+     * course
+     */
+    public int getOrdinal() {
+        return ordinal;
+    }
+
+    /**
+     * Checks if the cursor is at a lesson of the course.
+     *
+     * @return true if the cursor is in the course
+     */
+    public boolean isInCourse() {
+        return ordinal != CourseGraph.NONE;
+    }
+
+    /**
+     * Returns the id of the lesson the cursor is at.
+     *
+     * @return the lesson's id, or null if the cursor isn't in the course
+     */
+    public UUID getLessonId() {
+        return isInCourse() ? courseGraph.getLessonId(ordinal) : null;
+    }
+
+    /**
+     * Returns the id of the unit the cursor is in.
+     *
+     * @return the unit's id, or null if the cursor isn't in the course
+     */
+    public UUID getUnitId() {
+        return isInCourse() ? courseGraph.getUnitId(ordinal) : null;
+    }
+
+    /**
+     * Returns the unit the cursor is in.
+     *
+     * @return the unit, or null if the cursor isn't in the course
+     */
+    public Unit getUnit() {
+        return isInCourse() ? language.getUnitList().getUnitById(getUnitId()) : null;
+    }
+
+    /**
+     * Returns the lesson the cursor is at.
+     *
+     * @return the lesson, or null if the cursor isn't in the course
+     */
+    public Lesson getLesson() {
+        Unit unit = getUnit();
+        return unit == null ? null : unit.getLessonList().getLessonById(getLessonId());
+    }
+
+    /**
+     * Checks if the lesson after the cursor is in the same unit.
+     *
+     * @return true if there is a next lesson in the unit
+     */
+    public boolean hasNextInUnit() {
+        return isInCourse() && courseGraph.hasNextInUnit(ordinal);
+    }
+
+    /**
+     * Checks if the cursor is in the last unit of the course.
+     *
+     * @return true if there is no unit after the cursor's
+     */
+    public boolean isInLastUnit() {
+        return !isInCourse() || courseGraph.getNextUnitStart(ordinal) == CourseGraph.NONE;
+    }
+
+    /**
+     * Moves to the next lesson in the same unit.
+     *
+     * @return true if moved, false if the cursor is at the unit's last lesson
+     */
+    public boolean moveToNextLesson() {
+        if (!hasNextInUnit()) {
+            return false;
+        }
+        ordinal = courseGraph.getNext(ordinal);
+        return true;
+    }
+
+    /**
+     * Moves to the first lesson of the next unit.
+     *
+     * @return true if moved, false if the cursor is in the last unit
+     */
+    public boolean moveToNextUnit() {
+        if (isInLastUnit()) {
+            return false;
+        }
+        ordinal = courseGraph.getNextUnitStart(ordinal);
+        return true;
+    }
+
+    /**
+     * Moves to the next lesson of the course, in the same unit or the first
+     * lesson of the next unit.
+     *
+     * @return true if moved, false if the cursor is at the last lesson
+     */
+    public boolean moveToNext() {
+        if (!isInCourse() || courseGraph.getNext(ordinal) == CourseGraph.NONE) {
+            return false;
+        }
+        ordinal = courseGraph.getNext(ordinal);
+        return true;
+    }
+
+    /**
+     * Moves back to the first lesson of the cursor's unit.
+     */
+    public void restartUnit() {
+        if (isInCourse()) {
+            ordinal = courseGraph.getUnitStart(getUnitId());
+        }
+    }
+
+    /**
+     * Returns how much of the course lies before the cursor.
+     *
+     * @return the percent of lessons finished, from 0 to 100
+     */
+    public int getPercentComplete() {
+        return courseGraph.getPercentComplete(ordinal);
+    }
+}
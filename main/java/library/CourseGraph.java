@@ -0,0 +1,189 @@
+package library;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Immutable, flattened view of the order of a language's lessons. Every
+ * lesson gets an ordinal, its position in the course counting across units,
+ * and the successor, predecessor and next-unit links are worked out once
+ * when the graph is built. Moving a learner forward is then a single array
+ * step instead of a search through the unit and lesson lists, and the share
+ * of the course a learner has finished follows straight from the ordinal of
+ * their current lesson.
+ */
+public class CourseGraph {
+
+    public static final int NONE = -1;
+
+    private final UUID[] lessonIds;
+    private final UUID[] unitIds;
+    private final int[] next;
+    private final int[] previous;
+    private final int[] nextUnitStart;
+    private final UUIDMap<Integer> lessonOrdinals;
+    private final UUIDMap<Integer> unitStarts;
+
+    /**
+     * Builds the course graph of a language from the unit and lesson ids
+     * recorded in the CatalogIndex, so no lessons are loaded. Units without
+     * lessons are left out.
+     *
+     * @param language the language
+     */
+    public CourseGraph(Language language) {
+        CatalogIndex catalogIndex = CatalogIndex.getInstance();
+        LanguagesEnum languageEnum = language.getLanguageEnum();
+        List<UUID> units = catalogIndex.getUnitIds(languageEnum);
+        ArrayList<UUID> lessonIdList = new ArrayList<>();
+        ArrayList<UUID> unitIdList = new ArrayList<>();
+        ArrayList<Integer> unitStartList = new ArrayList<>();
+        for (int unit = 0; unit < units.size(); unit++) {
+            List<UUID> lessons = catalogIndex.getLessonIds(languageEnum, unit);
+            if (lessons.isEmpty()) {
+                continue;
+            }
+            unitStartList.add(lessonIdList.size());
+            for (UUID lessonId : lessons) {
+                lessonIdList.add(lessonId);
+                unitIdList.add(units.get(unit));
+            }
+        }
+
+        int count = lessonIdList.size();
+        lessonIds = lessonIdList.toArray(new UUID[count]);
+        unitIds = unitIdList.toArray(new UUID[count]);
+        next = new int[count];
+        previous = new int[count];
+        nextUnitStart = new int[count];
+        lessonOrdinals = new UUIDMap<>(count);
+        unitStarts = new UUIDMap<>(unitStartList.size());
+
+        int unit = 0;
+        for (int ordinal = 0; ordinal < count; ordinal++) {
+            next[ordinal] = ordinal + 1 < count ? ordinal + 1 : NONE;
+            previous[ordinal] = ordinal - 1;
+            if (unit + 1 < unitStartList.size() && unitStartList.get(unit + 1) == ordinal) {
+                unit++;
+            }
+            nextUnitStart[ordinal] = unit + 1 < unitStartList.size() ? unitStartList.get(unit + 1) : NONE;
+            // An id that appears twice keeps its first ordinal
+            if (lessonIds[ordinal] != null) {
+                lessonOrdinals.putIfAbsent(lessonIds[ordinal], ordinal);
+            }
+        }
+        for (int start : unitStartList) {
+            if (unitIds[start] != null) {
+                unitStarts.putIfAbsent(unitIds[start], start);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of lessons in the course.
+     *
+     * @return the lesson count
+     */
+    public int getLessonCount() {
+        return lessonIds.length;
+    }
+
+    /**
+     * Returns the ordinal of a lesson.
+     *
+     * @param lessonId the lesson's id
+     * @return the ordinal, or NONE if the lesson isn't in the course
+     */
+    public int getOrdinal(UUID lessonId) {
+        Integer ordinal = lessonOrdinals.get(lessonId);
+        return ordinal == null ? NONE : ordinal;
+    }
+
+    /**
+     * Returns the ordinal of the first lesson of a unit.
+     *
+     * @param unitId the unit's id
+     * @return the ordinal, or NONE if the unit isn't in the course
+     */
+    public int getUnitStart(UUID unitId) {
+        Integer ordinal = unitStarts.get(unitId);
+        return ordinal == null ? NONE : ordinal;
+    }
+
+    /**
+     * Returns the id of the lesson with the given ordinal.
+     *
+     * @param ordinal the lesson's ordinal
+     * @return the lesson's id
+     */
+    public UUID getLessonId(int ordinal) {
+        return lessonIds[ordinal];
+    }
+
+    /**
+     * Returns the id of the unit holding the lesson with the given ordinal.
+     *
+     * @param ordinal the lesson's ordinal
+     * @return the unit's id
+     */
+    public UUID getUnitId(int ordinal) {
+        return unitIds[ordinal];
+    }
+
+    /**
+     * Returns the ordinal of the lesson after the given one, in the same
+     * unit or the first lesson of the next unit.
+     *
+     * @param ordinal the lesson's ordinal
+     * @return the next ordinal, or NONE after the last lesson
+     */
+    public int getNext(int ordinal) {
+        return next[ordinal];
+    }
+
+    /**
+     * Returns the ordinal of the lesson before the given one.
+     *
+     * @param ordinal the lesson's ordinal
+     * @return the previous ordinal, or NONE before the first lesson
+     */
+    public int getPrevious(int ordinal) {
+        return previous[ordinal];
+    }
+
+    /**
+     * Returns the ordinal of the first lesson of the unit after the one
+     * holding the given lesson.
+     *
+     * @param ordinal the lesson's ordinal
+     * @return the ordinal, or NONE in the last unit
+     */
+    public int getNextUnitStart(int ordinal) {
+        return nextUnitStart[ordinal];
+    }
+
+    /**
+     * Checks if the lesson after the given one is in the same unit.
+     *
+     * @param ordinal the lesson's ordinal
+     * @return true if the next lesson is in the same unit
+     */
+    public boolean hasNextInUnit(int ordinal) {
+        return next[ordinal] != NONE && next[ordinal] != nextUnitStart[ordinal];
+    }
+
+    /**
+     * Returns the share of the course finished by a learner whose current
+     * lesson has the given ordinal, counting every lesson before it.
+     *
+     * @param ordinal the ordinal of the learner's current lesson
+     * @return the percent of lessons finished, from 0 to 100
+     */
+    public int getPercentComplete(int ordinal) {
+        if (ordinal == NONE || lessonIds.length == 0) {
+            return 0;
+        }
+        return ordinal * 100 / lessonIds.length;
+    }
+}
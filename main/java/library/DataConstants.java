@@ -18,6 +18,8 @@ public abstract class DataConstants {
     protected static final String USERS_LANGUAGES = "languages";
     protected static final String USERS_BADGES = "badges";
     protected static final String USERS_BADGE_ID = "badgeID";
+    protected static final String USERS_BADGE_MASK = "badgeMask";
+    protected static final String USERS_SAVED_AT = "savedAt";
     protected static final String USERS_PROBLEM_WORDS = "problemWords";
     protected static final String USERS_WORD_ID = "id";
     protected static final String USERS_WORD_TEXT = "text";
@@ -25,8 +27,23 @@ public abstract class DataConstants {
     protected static final String USERS_WORD_PART_OF_SPEECH = "partOfSpeech";
     protected static final String USERS_WORD_EXAMPLE_SENTENCE = "exampleSentence";
 
+    protected static final String USERS_DIRECTORY_NAME = "src/main/java/data/users/";
+    protected static final String USERS_DIRECTORY_NAME_JUNIT = "/data/users/";
+    protected static final String USERS_INDEX_FILE_NAME = "index.json";
+    protected static final String USERS_RECORD_EXTENSION = ".json";
+
+    protected static final String PROGRESS_FILE_NAME = "src/main/java/data/progress.log";
+    protected static final String PROGRESS_FILE_NAME_JUNIT = "/data/progress.log";
+
+    protected static final String BADGE_FILE_NAME = "src/main/java/data/badges.json";
+    protected static final String BADGE_FILE_NAME_JUNIT = "/data/badges.json";
+    protected static final String BADGE_ID = "badgeID";
+    protected static final String BADGE_NAME = "name";
+    protected static final String BADGE_DESCRIPTION = "description";
+
     protected static final String LANGUAGE_FILE_NAME = "src/main/java/data/language.json";
     protected static final String LANGUAGE_FILE_NAME_JUNIT = "/data/language.json";
+    protected static final String LANGUAGE_IMAGE_FILE_NAME = "src/main/java/data/language.bin";
     protected static final String LANGUAGE_ENUM = "languageEnum";
     protected static final String LANGUAGE_NAME = "languageName";
     protected static final String LANGUAGE_UNIT_LIST = "unitList";
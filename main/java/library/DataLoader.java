@@ -1,11 +1,15 @@
 package library;
 
 import java.io.BufferedReader;
+import java.io.File;
 import java.io.FileReader;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
@@ -19,7 +23,9 @@ public class DataLoader extends DataConstants {
 
     /**
      * Loads the users from the JSON file and returns an ArrayList of User 
-     * objects.
+     * objects. The file is streamed token by token rather than parsed into a
+     * JSONArray first, so only one user record is held in memory at a time.
+     * Any progress recorded in the progress journal is replayed on top.
      *
      * @return An ArrayList of User objects loaded from the JSON file.
      */
@@ -28,60 +34,87 @@ public class DataLoader extends DataConstants {
         BufferedReader reader = getReaderFromFile(USERS_FILE_NAME, USERS_FILE_NAME_JUNIT);
 
         try {
-            JSONArray usersJSON = (JSONArray) new JSONParser().parse(reader);
-
-            for (Object user : usersJSON) {
-                ArrayList<Language> languages = new ArrayList<Language>();
-                ArrayList<Badge> badges = new ArrayList<Badge>();
-                ArrayList<Word> problemWords = new ArrayList<Word>();
-
-                JSONObject userJSON = (JSONObject) user;
-                String firstName = (String) userJSON.get(USERS_FIRST_NAME);
-                String lastName = (String) userJSON.get(USERS_LAST_NAME);
-                String email = (String) userJSON.get(USERS_EMAIL);
-                String phoneNumber = (String) userJSON.get(USERS_PHONE_NUMBER);
-                String username = (String) userJSON.get(USERS_USERNAME);
-                String password = (String) userJSON.get(USERS_PASSWORD);
-                UUID UserID = UUID.fromString((String) userJSON.get(USERS_UUID));
-                UUID currentLessonID = UUID.fromString((String) userJSON.get(USERS_CURRENT_LESSON_ID));
-                UUID currentUnitID = UUID.fromString((String) userJSON.get(USERS_CURRENT_UNIT_ID));
-
-                // Create problem word list
-                JSONArray wordsJSON = (JSONArray) userJSON.get(USERS_PROBLEM_WORDS);
-                for (Object word : wordsJSON) {
-                    JSONObject wordJSON = (JSONObject) word;
-                    UUID wordID = UUID.fromString((String) wordJSON.get(USERS_WORD_ID));
-                    String text = (String) wordJSON.get(USERS_WORD_TEXT);
-                    String translation = (String) wordJSON.get(USERS_WORD_TRANSLATION);
-                    String partOfSpeech = (String) wordJSON.get(USERS_WORD_PART_OF_SPEECH);
-                    String exampleSentence = (String) wordJSON.get(USERS_WORD_EXAMPLE_SENTENCE);
-                    // Add language to list by accessing language from languagelist via UUID
-                    problemWords.add((new Word(wordID, text, translation, partOfSpeech, exampleSentence)));
-                }
+            new JSONParser().parse(reader, new UserContentHandler(users));
+            reader.close();
 
-                // Create languages
-                JSONArray languagesJSON = (JSONArray) userJSON.get(USERS_LANGUAGES);
-                for (Object language : languagesJSON) {
-                    JSONObject languageJSON = (JSONObject) language;
-                    // Add language to list by accessing language from languagelist via UUID
-                    languages.add(LanguageList.getInstance().getLanguageByEnum(LanguagesEnum.valueOf((String) languageJSON.get(LANGUAGE_ENUM))));
-                }
+            // Apply progress saved since the file was last written
+            ProgressJournal.replay(users);
+            return users;
 
-                // Create badges list
-                JSONArray badgesJSON = (JSONArray) userJSON.get(USERS_BADGES);
-                for (Object badge : badgesJSON) {
-                    JSONObject badgeJSON = (JSONObject) badge;
-                    // Add badge by accessing badge via UUID
-                    badges.add(Badge.getBadgeByUUID(UUID.fromString((String) badgeJSON.get(USERS_BADGE_ID))));
-                    //System.out.println(UUID.fromString((String)badgeJSON.get(USERS_BADGE_ID)));
-                    //System.out.println(Badge.getBadgeByUUID(UUID.fromString((String)badgeJSON.get(USERS_BADGE_ID))));
-                }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+
+        return null;
+    }
 
-                // Add user to user arraylist
-                users.add(new User(UserID, firstName, lastName, email, phoneNumber, username, password, languages, badges, currentUnitID, currentLessonID, new WordList(problemWords)));
+    /**
+     * Checks whether the sharded user store has been created. Until it has,
+     * users are loaded from the single users file.
+     *
+     * @return true if the user store directory exists, false otherwise
+     */
+    public static boolean userStoreExists() {
+        return fileExists(USERS_DIRECTORY_NAME, USERS_DIRECTORY_NAME_JUNIT);
+    }
+
+    /**
+     * Loads the manifest of the sharded user store, listing every account
+     * without loading the accounts themselves.
+     *
+     * @return An ArrayList of manifest entries, empty if the manifest is
+     * missing or can't be read.
+     */
+    public static ArrayList<UserIndexEntry> getUserIndex() {
+        ArrayList<UserIndexEntry> entries = new ArrayList<UserIndexEntry>();
+        String fileName = USERS_DIRECTORY_NAME + USERS_INDEX_FILE_NAME;
+        String jsonFileName = USERS_DIRECTORY_NAME_JUNIT + USERS_INDEX_FILE_NAME;
+        if (!fileExists(fileName, jsonFileName)) {
+            return entries;
+        }
+        BufferedReader reader = getReaderFromFile(fileName, jsonFileName);
+
+        try {
+            JSONArray entriesJSON = (JSONArray) new JSONParser().parse(reader);
+
+            for (Object entry : entriesJSON) {
+                JSONObject entryJSON = (JSONObject) entry;
+                UUID userID = UUID.fromString((String) entryJSON.get(USERS_UUID));
+                String username = (String) entryJSON.get(USERS_USERNAME);
+                String email = (String) entryJSON.get(USERS_EMAIL);
+                String phoneNumber = (String) entryJSON.get(USERS_PHONE_NUMBER);
+                String firstName = (String) entryJSON.get(USERS_FIRST_NAME);
+                String lastName = (String) entryJSON.get(USERS_LAST_NAME);
+                entries.add(new UserIndexEntry(userID, username, email, phoneNumber, firstName, lastName));
             }
             reader.close();
-            return users;
+
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+
+        return entries;
+    }
+
+    /**
+     * Loads a single user from the sharded user store.
+     *
+     * @param id The UUID of the user to load.
+     * @return The loaded User, or null if the user has no file in the store.
+     */
+    public static User getUser(UUID id) {
+        String fileName = USERS_DIRECTORY_NAME + id + USERS_RECORD_EXTENSION;
+        String jsonFileName = USERS_DIRECTORY_NAME_JUNIT + id + USERS_RECORD_EXTENSION;
+        if (!fileExists(fileName, jsonFileName)) {
+            return null;
+        }
+        ArrayList<User> users = new ArrayList<User>();
+        BufferedReader reader = getReaderFromFile(fileName, jsonFileName);
+
+        try {
+            new JSONParser().parse(reader, new UserContentHandler(users, true));
+            reader.close();
+            return users.isEmpty() ? null : users.get(0);
 
         } catch (Exception e) {
             e.printStackTrace();
@@ -90,6 +123,38 @@ public class DataLoader extends DataConstants {
         return null;
     }
 
+    /**
+     * Loads the badges from the JSON file and returns an ArrayList of Badge
+     * objects, in the order they appear in the file.
+     *
+     * @return An ArrayList of Badge objects, empty if there is no badge file.
+     */
+    public static ArrayList<Badge> getBadges() {
+        ArrayList<Badge> badges = new ArrayList<Badge>();
+        if (!fileExists(BADGE_FILE_NAME, BADGE_FILE_NAME_JUNIT)) {
+            return badges;
+        }
+        BufferedReader reader = getReaderFromFile(BADGE_FILE_NAME, BADGE_FILE_NAME_JUNIT);
+
+        try {
+            JSONArray badgesJSON = (JSONArray) new JSONParser().parse(reader);
+            reader.close();
+
+            for (Object badge : badgesJSON) {
+                JSONObject badgeJSON = (JSONObject) badge;
+                UUID badgeID = UUID.fromString((String) badgeJSON.get(BADGE_ID));
+                String name = (String) badgeJSON.get(BADGE_NAME);
+                String description = (String) badgeJSON.get(BADGE_DESCRIPTION);
+                badges.add(new Badge(badgeID, name, description));
+            }
+
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+
+        return badges;
+    }
+
     /**
      * Loads the languages from the JSON file and returns an ArrayList of
      * Language objects.
@@ -109,61 +174,24 @@ public class DataLoader extends DataConstants {
             // Language JSON
             for (Object language : languagesJSON) {
 
-                // Initalize unit list
-                ArrayList<Unit> units = new ArrayList<Unit>();
-
                 // Get lanaugage information
                 JSONObject languageJSON = (JSONObject) language;
                 String languageName = (String) languageJSON.get(LANGUAGE_NAME);
                 LanguagesEnum languageEnum = LanguagesEnum.valueOf((String) languageJSON.get(LANGUAGE_ENUM));
 
-                // Units JSON
+                // Units JSON, each unit belongs to the language's unit list
                 JSONArray unitsJSON = (JSONArray) languageJSON.get(LANGUAGE_UNIT_LIST);
-                for (Object unit : unitsJSON) {
-                    // Initialize lesson list 
-                    ArrayList<Lesson> lessons = new ArrayList<Lesson>();
-
-                    // Get unit information
-                    JSONObject unitJSON = (JSONObject) unit;
-                    UUID unitID = UUID.fromString((String) unitJSON.get(UNIT_ID));
-                    String unitName = (String) unitJSON.get(UNIT_NAME);
-                    int unitNumber = Integer.parseInt((String) unitJSON.get(UNIT_NUMBER));
-
-                    // Lesson JSON
-                    JSONArray lessonsJSON = (JSONArray) unitJSON.get(UNIT_LESSON_LIST);
-                    for (Object lesson : lessonsJSON) {
-                        ArrayList<Word> words = new ArrayList<Word>();
-
-                        // Get lesson information
-                        JSONObject lessonJSON = (JSONObject) lesson;
-                        UUID lessonID = UUID.fromString((String) lessonJSON.get(LESSON_ID));
-                        String lessonName = (String) lessonJSON.get(LESSON_NAME);
-                        int lessonNumber = Integer.parseInt((String) lessonJSON.get(LESSON_NUMBER));
-
-                        // Word JSON
-                        JSONArray wordsJSON = (JSONArray) lessonJSON.get(LESSON_WORD_LIST);
-                        for (Object word : wordsJSON) {
-
-                            // Get word information
-                            JSONObject wordJSON = (JSONObject) word;
-                            UUID wordID = UUID.fromString((String) wordJSON.get(WORD_ID));
-                            String text = (String) wordJSON.get(WORD_TEXT);
-                            String translation = (String) wordJSON.get(WORD_TRANSLATION);
-                            String partOfSpeech = (String) wordJSON.get(WORD_PART_OF_SPEECH);
-                            String exampleSentence = (String) wordJSON.get(WORD_EXAMPLE_SENTENCE);
-                            words.add(new Word(wordID, text, translation, partOfSpeech, exampleSentence));
-                        }
-
-                        // Add lesson to lesson list
-                        lessons.add(new Lesson(lessonID, lessonName, lessonNumber, new WordList(words)));
+                UnitList unitList = new UnitList(list -> {
+                    ArrayList<Unit> units = new ArrayList<Unit>();
+                    for (Object unit : unitsJSON) {
+                        units.add(readUnit((JSONObject) unit, list));
                     }
-
-                    // Add unit to unit list
-                    units.add(new Unit(unitID, unitName, unitNumber, new LessonList(lessons), new UnitList(units)));
-                }
+                    return units;
+                });
+                unitList.getUnits();
 
                 // Add language to language list
-                languages.add(new Language(languageEnum, languageName, new UnitList(units)));
+                languages.add(new Language(languageEnum, languageName, unitList));
             }
 
             return languages;
@@ -175,6 +203,111 @@ public class DataLoader extends DataConstants {
         return null;
     }
 
+    /**
+     * Loads the languages from the JSON file using a fork/join pool. The file
+     * is parsed once, then every language and every unit within it is built
+     * as its own task. The units and languages are put back together in the
+     * order they appear in the file.
+     *
+     * @param pool the pool the languages and units are built in
+     * @return An ArrayList of Language objects loaded from the JSON file.
+     */
+    public static ArrayList<Language> getLanguages(ForkJoinPool pool) {
+        BufferedReader reader = getReaderFromFile(LANGUAGE_FILE_NAME, LANGUAGE_FILE_NAME_JUNIT);
+
+        try {
+            JSONArray languagesJSON = (JSONArray) new JSONParser().parse(reader);
+            reader.close();
+            return pool.invoke(ForkJoinTask.adapt(() -> readLanguagesInParallel(languagesJSON)));
+
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+
+        return null;
+    }
+
+    private static ArrayList<Language> readLanguagesInParallel(JSONArray languagesJSON) {
+        ArrayList<ForkJoinTask<Language>> tasks = new ArrayList<>();
+        for (Object language : languagesJSON) {
+            tasks.add(ForkJoinTask.adapt(() -> readLanguageInParallel((JSONObject) language)).fork());
+        }
+
+        ArrayList<Language> languages = new ArrayList<Language>();
+        for (ForkJoinTask<Language> task : tasks) {
+            languages.add(task.join());
+        }
+        return languages;
+    }
+
+    private static Language readLanguageInParallel(JSONObject languageJSON) {
+        String languageName = (String) languageJSON.get(LANGUAGE_NAME);
+        LanguagesEnum languageEnum = LanguagesEnum.valueOf((String) languageJSON.get(LANGUAGE_ENUM));
+
+        UnitList unitList = new UnitList(list -> {
+            ArrayList<ForkJoinTask<Unit>> tasks = new ArrayList<>();
+            for (Object unit : (JSONArray) languageJSON.get(LANGUAGE_UNIT_LIST)) {
+                tasks.add(ForkJoinTask.adapt(() -> readUnit((JSONObject) unit, list)).fork());
+            }
+            ArrayList<Unit> units = new ArrayList<Unit>();
+            for (ForkJoinTask<Unit> task : tasks) {
+                units.add(task.join());
+            }
+            return units;
+        });
+        unitList.getUnits();
+
+        return new Language(languageEnum, languageName, unitList);
+    }
+
+    /**
+     * Builds a unit, with all of its lessons and words, from its JSON.
+     *
+     * @param unitJSON the unit's JSON
+     * @param unitList the list of units the unit belongs to
+     * @return the unit
+     */
+    private static Unit readUnit(JSONObject unitJSON, UnitList unitList) {
+        // Initialize lesson list 
+        ArrayList<Lesson> lessons = new ArrayList<Lesson>();
+
+        // Get unit information
+        UUID unitID = UUID.fromString((String) unitJSON.get(UNIT_ID));
+        String unitName = (String) unitJSON.get(UNIT_NAME);
+        int unitNumber = Integer.parseInt((String) unitJSON.get(UNIT_NUMBER));
+
+        // Lesson JSON
+        JSONArray lessonsJSON = (JSONArray) unitJSON.get(UNIT_LESSON_LIST);
+        for (Object lesson : lessonsJSON) {
+            ArrayList<Word> words = new ArrayList<Word>();
+
+            // Get lesson information
+            JSONObject lessonJSON = (JSONObject) lesson;
+            UUID lessonID = UUID.fromString((String) lessonJSON.get(LESSON_ID));
+            String lessonName = (String) lessonJSON.get(LESSON_NAME);
+            int lessonNumber = Integer.parseInt((String) lessonJSON.get(LESSON_NUMBER));
+
+            // Word JSON
+            JSONArray wordsJSON = (JSONArray) lessonJSON.get(LESSON_WORD_LIST);
+            for (Object word : wordsJSON) {
+
+                // Get word information
+                JSONObject wordJSON = (JSONObject) word;
+                UUID wordID = UUID.fromString((String) wordJSON.get(WORD_ID));
+                String text = (String) wordJSON.get(WORD_TEXT);
+                String translation = (String) wordJSON.get(WORD_TRANSLATION);
+                String partOfSpeech = (String) wordJSON.get(WORD_PART_OF_SPEECH);
+                String exampleSentence = (String) wordJSON.get(WORD_EXAMPLE_SENTENCE);
+                words.add(new Word(wordID, text, translation, partOfSpeech, exampleSentence));
+            }
+
+            // Add lesson to lesson list
+            lessons.add(new Lesson(lessonID, lessonName, lessonNumber, new WordList(words)));
+        }
+
+        return new Unit(unitID, unitName, unitNumber, new LessonList(lessons), unitList);
+    }
+
     // Tester
     public static void main(String[] args) {
 
@@ -186,21 +319,21 @@ public class DataLoader extends DataConstants {
             System.out.println("Language ID: " + language.getLanguageEnum());
             System.out.println();
 
-            ArrayList<Unit> units = language.getUnits();
+            List<Unit> units = language.getUnits();
             for (Unit unit : units) {
                 System.out.println("Unit Name: " + unit.getUnitName());
                 System.out.println("Unit Number: " + unit.getUnitNumber());
                 System.out.println("Unit ID: " + unit.getId());
                 System.out.println();
 
-                ArrayList<Lesson> lessons = unit.getLessons();
+                List<Lesson> lessons = unit.getLessons();
                 for (Lesson lesson : lessons) {
                     System.out.println("Lesson Name: " + lesson.getLessonName());
                     System.out.println("Lesson Number: " + lesson.getLessonNumber());
                     System.out.println("Lesson ID: " + lesson.getId());
                     System.out.println();
 
-                    ArrayList<Word> words = lesson.getWords();
+                    List<Word> words = lesson.getWords();
                     for (Word word : words) {
                         System.out.println("Word ID: " + word.getId());
                         System.out.println("Word text: " + word.getForeignWord());
@@ -239,6 +372,13 @@ public class DataLoader extends DataConstants {
         }
     }
 
+    private static boolean fileExists(String fileName, String jsonFileName) {
+        if (isJUnitTest()) {
+            return DataLoader.class.getResource(jsonFileName) != null;
+        }
+        return new File(fileName).exists();
+    }
+
     private static BufferedReader getReaderFromFile(String fileName, String jsonFileName){
 		try {
 			if(isJUnitTest()){
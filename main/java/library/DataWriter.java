@@ -1,9 +1,14 @@
 package library;
 
+import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.net.URI;
-import java.util.ArrayList;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.List;
 
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
@@ -20,37 +25,122 @@ import org.json.simple.JSONObject;
 public class DataWriter extends DataConstants {
 
     /**
-     * Saves a list of users to a JSON file.
+     * Saves the users to the sharded user store. Each user changed since the
+     * last save is written to its own file, and the manifest is rewritten
+     * only when an account was added or its lookup fields changed. The
+     * progress journal is rotated first, and the rotated journal is deleted
+     * once the written files hold every user's progress.
      */
     public static void saveUsers() {
-        UserList userList = UserList.getInstance();
-        ArrayList<User> users = userList.getUsers();
-        JSONArray jsonUsers = new JSONArray();
+        saveUsers(UserList.getInstance());
+    }
 
-        // Creating json objects
-        for (User user : users) {
-            jsonUsers.add(getUserJSON(user));
+    /**
+     * Saves the changed users of the given user list to the sharded user
+     * store.
+     *
+     * @param userList the user list to save
+     */
+    static synchronized void saveUsers(UserList userList) {
+        // Progress saved from now on goes to a new journal that this save leaves alone
+        boolean saved = ProgressJournal.rotate();
+        // Journaled progress has to be in a user file before the journal is deleted
+        userList.loadJournaledUsers();
+
+        for (User user : userList.getLoadedUsers()) {
+            if (user.isDirty()) {
+                // Clear first so a change made while writing is kept for next time
+                user.clearDirty();
+                boolean written = false;
+                try {
+                    written = saveUser(user);
+                } finally {
+                    if (!written) {
+                        user.markDirty();
+                        saved = false;
+                    }
+                }
+                userList.updateIndexEntry(user);
+            }
         }
 
-        // Write json file
-        try  {
-            String path = getFileWritingPath(USERS_FILE_NAME, USERS_FILE_NAME_JUNIT);
-			FileWriter writer = new FileWriter(path);
-			
-			writer.write(jsonUsers.toJSONString());
-			writer.flush();
-        } catch (IOException e) {
-            e.printStackTrace();
+        if (userList.isIndexChanged()) {
+            // Clear first so a change made while writing is kept for next time
+            userList.setIndexChanged(false);
+            boolean written = false;
+            try {
+                written = saveUserIndex(userList.getIndexEntries());
+            } finally {
+                if (!written) {
+                    userList.setIndexChanged(true);
+                    saved = false;
+                }
+            }
+        }
+
+        // Rotated journal records are now part of the user files
+        if (saved) {
+            ProgressJournal.discardRotated();
+        }
+    }
+
+    /**
+     * Writes a single user to its own file in the user store.
+     *
+     * @param user the user to save
+     * @return true if the file was written, false otherwise
+     */
+    public static boolean saveUser(User user) {
+        String path = getUserStorePath() + user.getId() + USERS_RECORD_EXTENSION;
+        return writeFile(path, getUserJSON(user).toJSONString());
+    }
+
+    /**
+     * Writes the manifest of the user store.
+     *
+     * @param entries the manifest entries of every account
+     * @return true if the file was written, false otherwise
+     */
+    public static boolean saveUserIndex(Collection<UserIndexEntry> entries) {
+        JSONArray entriesJSON = new JSONArray();
+        for (UserIndexEntry entry : entries) {
+            entriesJSON.add(getUserIndexJSON(entry));
         }
+        return writeFile(getUserStorePath() + USERS_INDEX_FILE_NAME, entriesJSON.toJSONString());
+    }
+
+    /**
+     * Uses a given manifest entry to create a JSONObject.
+     *
+     * @param entry the manifest entry
+     * @return the created JSONObject
+     */
+    public static JSONObject getUserIndexJSON(UserIndexEntry entry) {
+        JSONObject entryDetails = new JSONObject();
+        entryDetails.put(USERS_UUID, entry.getId().toString());
+        entryDetails.put(USERS_USERNAME, entry.getUsername());
+        entryDetails.put(USERS_EMAIL, entry.getEmail());
+        entryDetails.put(USERS_PHONE_NUMBER, entry.getPhoneNumber());
+        entryDetails.put(USERS_FIRST_NAME, entry.getFirstName());
+        entryDetails.put(USERS_LAST_NAME, entry.getLastName());
+        return entryDetails;
     }
 
     /**
-     * Uses a given User object to create a JSONObject.
+     * Uses a given User object to create a JSONObject. The user is locked
+     * while it is read, so the object is a consistent snapshot even if the
+     * user is being changed on another thread.
      *
      * @param user the User object
      * @return the created JSONObject
      */
     public static JSONObject getUserJSON(User user) {
+        synchronized (user) {
+            return getUserDetails(user);
+        }
+    }
+
+    private static JSONObject getUserDetails(User user) {
         JSONObject userDetails = new JSONObject();
         userDetails.put(USERS_FIRST_NAME, user.getFirstName());
         userDetails.put(USERS_LAST_NAME, user.getLastName());
@@ -59,6 +149,8 @@ public class DataWriter extends DataConstants {
         userDetails.put(USERS_USERNAME, user.getUsername());
         userDetails.put(USERS_PASSWORD, user.getPassword());
         userDetails.put(USERS_UUID, user.getId().toString());
+        // Journal records written after this are replayed over the snapshot
+        userDetails.put(USERS_SAVED_AT, System.currentTimeMillis());
         userDetails.put(USERS_CURRENT_UNIT_ID, user.getUnitId().toString());
         userDetails.put(USERS_CURRENT_LESSON_ID, user.getLessonId().toString());
 
@@ -68,22 +160,24 @@ public class DataWriter extends DataConstants {
         languagesArray.add(languageObject);
         userDetails.put("languages", languagesArray);
 
-        JSONArray badgesArray = new JSONArray();
-        for (Badge badge : user.getBadges()) {
-            JSONObject badgeObject = new JSONObject();
-            badgeObject.put("badgeID", badge.getID().toString());
-            badgesArray.add(badgeObject);
-        }
-        userDetails.put("badges", badgesArray);
+        userDetails.put(USERS_BADGE_MASK, BadgeList.encodeMask(user.getBadgeMask()));
 
+        // Problem words are stored as references to words in the catalog
         JSONArray problemWordsArray = new JSONArray();
+        LanguageList languageList = LanguageList.getInstance();
         for (Word problemWord : user.getProblemWordList().getWords()) {
+            if (problemWord.getId() == null) {
+                continue;
+            }
             JSONObject wordObject = new JSONObject();
-            wordObject.put("id", problemWord.getId().toString());
-            wordObject.put("text", problemWord.getForeignWord());
-            wordObject.put("translation", problemWord.getTranslatedWord());
-            wordObject.put("partOfSpeech", problemWord.getPartofSpeech());
-            wordObject.put("exampleSentence", problemWord.getExampleSentence());
+            wordObject.put(USERS_WORD_ID, problemWord.getId().toString());
+            // A word that left the catalog can't be resolved by id, so keep a copy of it
+            if (languageList.getWordById(problemWord.getId()) == null) {
+                wordObject.put(USERS_WORD_TEXT, problemWord.getForeignWord());
+                wordObject.put(USERS_WORD_TRANSLATION, problemWord.getTranslatedWord());
+                wordObject.put(USERS_WORD_PART_OF_SPEECH, problemWord.getPartofSpeech());
+                wordObject.put(USERS_WORD_EXAMPLE_SENTENCE, problemWord.getExampleSentence());
+            }
             problemWordsArray.add(wordObject);
         }
         userDetails.put("problemWords", problemWordsArray);
@@ -96,7 +190,7 @@ public class DataWriter extends DataConstants {
      */
     public static void saveLanguage() {
         LanguageList languageList = LanguageList.getInstance();
-        ArrayList<Language> languages = languageList.getLanguages();
+        List<Language> languages = languageList.getLanguages();
         JSONArray jsonLangauges = new JSONArray();
 
         for (Language language : languages) {
@@ -111,6 +205,24 @@ public class DataWriter extends DataConstants {
         }
     }
 
+    /**
+     * Writes the badge registry to the badge file, in ordinal order.
+     *
+     * @param badges every badge, in ordinal order
+     * @return true if the file was written, false otherwise
+     */
+    public static boolean saveBadges(List<Badge> badges) {
+        JSONArray badgesJSON = new JSONArray();
+        for (Badge badge : badges) {
+            JSONObject badgeDetails = new JSONObject();
+            badgeDetails.put(BADGE_ID, badge.getID().toString());
+            badgeDetails.put(BADGE_NAME, badge.getName());
+            badgeDetails.put(BADGE_DESCRIPTION, badge.getDescription());
+            badgesJSON.add(badgeDetails);
+        }
+        return writeFile(getFileWritingPath(BADGE_FILE_NAME, BADGE_FILE_NAME_JUNIT), badgesJSON.toJSONString());
+    }
+
     /**
      * Uses given Language object to create a JSONObject.
      *
@@ -123,14 +235,14 @@ public class DataWriter extends DataConstants {
         languageDetails.put(LANGUAGE_ENUM, language.getLanguageEnum());
 
         JSONArray unitArray = new JSONArray();
-        ArrayList<Unit> units = language.getUnitList().getUnits();
+        List<Unit> units = language.getUnitList().getUnits();
         for (Unit unit : units) {
             JSONObject unitJSON = new JSONObject();
             unitJSON.put(USERS_CURRENT_UNIT_ID, unit.getUnitNumber());
             unitJSON.put(UNIT_NAME, unit.toString());
 
             JSONArray lessonArray = new JSONArray();
-            ArrayList<Lesson> lessons = unit.getLessons();
+            List<Lesson> lessons = unit.getLessons();
             for (Lesson lesson : lessons) {
                 JSONObject lessonJSON = new JSONObject();
                 lessonJSON.put(USERS_CURRENT_LESSON_ID, lesson.getId().toString());
@@ -145,52 +257,45 @@ public class DataWriter extends DataConstants {
     }
 
     /**
-     * Saves the current progress for a specific user to a JSON file.
+     * Saves the current progress for a specific user. The progress is
+     * appended to the progress journal rather than rewriting the users file,
+     * and is folded into the users file on the next call to saveUsers.
      *
      * @param user The user whose progress needs to be saved.
      */
     public static void saveUserProgress(User user) {
-        JSONObject userDetails = new JSONObject();
-        userDetails.put(USERS_UUID, user.getId().toString());
-        userDetails.put(USERS_CURRENT_UNIT_ID, user.getUnitId().toString());
-        userDetails.put(USERS_CURRENT_LESSON_ID, user.getLessonId().toString());
-
-        // Assuming DataLoader.getUserList() returns an ArrayList<User>
-        ArrayList<User> userList = DataLoader.getUserList();
-        JSONArray JSONUsers = new JSONArray();
-
-        // Convert ArrayList<User> to JSONArray
-        for (User u : userList) {
-            JSONObject jsonUser = new JSONObject();
-            jsonUser.put(USERS_UUID, u.getId().toString());
-            jsonUser.put(USERS_CURRENT_UNIT_ID, u.getUnitId().toString());
-            jsonUser.put(USERS_CURRENT_LESSON_ID, u.getLessonId().toString());
-            JSONUsers.add(jsonUser);
-        }
+        ProgressJournal.append(user);
+    }
 
-        boolean userUpdated = false;
-        for (int i = 0; i < JSONUsers.size(); i++) {
-            JSONObject existingUser = (JSONObject) JSONUsers.get(i);
-            if (existingUser.get(USERS_UUID).equals(user.getId().toString())) {
-                JSONUsers.set(i, userDetails);
-                userUpdated = true;
-                break;
-            }
-        }
+    private static String getUserStorePath() {
+        String path = getFileWritingPath(USERS_DIRECTORY_NAME, USERS_DIRECTORY_NAME_JUNIT);
+        new File(path).mkdirs();
+        return path.endsWith(File.separator) || path.endsWith("/") ? path : path + File.separator;
+    }
 
-        if (!userUpdated) {
-            JSONUsers.add(userDetails);
+    /**
+     * Writes a file by writing a temporary file next to it and renaming it
+     * over the original, so readers never see a half written file.
+     */
+    private static boolean writeFile(String path, String contents) {
+        File file = new File(path);
+        File temp = new File(path + ".tmp");
+        try (FileWriter writer = new FileWriter(temp)) {
+            writer.write(contents);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
         }
-        
-        // Write json file
         try {
-            String path = getFileWritingPath(USERS_FILE_NAME, USERS_FILE_NAME_JUNIT);
-			FileWriter writer = new FileWriter(path);
-			
-			writer.write(JSONUsers.toJSONString());
-			writer.flush();
+            try {
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            return true;
         } catch (IOException e) {
             e.printStackTrace();
+            return false;
         }
     }
 
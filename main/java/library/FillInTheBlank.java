@@ -1,8 +1,8 @@
 package library;
 
-import java.util.ArrayList;
-import java.util.Random;
+import java.util.List;
 import java.util.Scanner;
+import java.util.SplittableRandom;
 
 import narration.Narrator;
 
@@ -18,39 +18,42 @@ public class FillInTheBlank implements Question {
     private String answer;
     private String question;
     private Word answerWord;
+    private AnswerMatcher answerMatcher;
 
     /**
      * Constructor for the FillInTheBlank class, creates a random question based
      * off of list of testable words
      *
-     * @param words ArrayList of the lesson's quizzable words
+     * @param words the lesson's quizzable words, which aren't changed
      */
-    public FillInTheBlank(ArrayList<Word> words) {
-
-        Random rand = new Random();
-        this.answerWord = words.get(rand.nextInt(words.size()));
+    public FillInTheBlank(List<Word> words) {
+        this(words, AnswerMatcher.EXPECTED_ONLY, QuestionEngine.getDefault().forCurrentThread());
+    }
 
-        if(answerWord != null) {
-            System.out.println("Hint: " + answerWord.getTranslatedWord());
-            
-            this.answer = answerWord.getForeignWord();
-            this.question = answerWord.getExampleSentence();
-        }
+    /**
+     * Constructor for the FillInTheBlank class, creates a random question based
+     * off of list of testable words, graded with the lesson's answer matcher
+     *
+     * @param words the lesson's quizzable words, which aren't changed
+     * @param answerMatcher the lesson's answer matcher
+     */
+    public FillInTheBlank(List<Word> words, AnswerMatcher answerMatcher) {
+        this(words, answerMatcher, QuestionEngine.getDefault().forCurrentThread());
     }
 
     /**
-     * Constructor for the FillInTheBlank class, creates a random question based on the seed
+     * Constructor for the FillInTheBlank class, creates a question from the
+     * given random stream, see QuestionEngine
      *
-     * @param words ArrayList of the lesson's quizzable words
-     * @param seed random seed
+     * @param words the lesson's quizzable words, which aren't changed
+     * @param answerMatcher the lesson's answer matcher
+     * @param rand the question's random stream
      */
-    public FillInTheBlank(ArrayList<Word> words, int seed) {
-        Random rand = new Random(seed);
-        this.answerWord = words.get(rand.nextInt(words.size()));
+    FillInTheBlank(List<Word> words, AnswerMatcher answerMatcher, SplittableRandom rand) {
+        this.answerMatcher = answerMatcher;
+        this.answerWord = WordSampler.pick(words, rand);
 
         if(answerWord != null) {
-            System.out.println("Hint: " + answerWord.getTranslatedWord());
-
             this.answer = answerWord.getForeignWord();
             this.question = answerWord.getExampleSentence();
         }
@@ -63,7 +66,7 @@ public class FillInTheBlank implements Question {
      * @return returns true if the answer is correct, false otherwise
      */
     public boolean checkAnswer(String answer) {
-        return this.answer.equalsIgnoreCase(answer);
+        return answerMatcher.matches(this.answer, answer);
     }
 
     /**
@@ -113,7 +116,8 @@ public class FillInTheBlank implements Question {
      */
     @Override
     public boolean run(User user) {
-        // Display and narrate question
+        // Display the hint, and display and narrate question
+        System.out.println("Hint: " + answerWord.getTranslatedWord());
         System.out.println(question);
         Narrator.playSound(question);
 
@@ -143,7 +147,8 @@ public class FillInTheBlank implements Question {
      * question wrong
      */
     public boolean run(User user, String userAnswer) {
-        // Display question
+        // Display hint and question
+        System.out.println("Hint: " + answerWord.getTranslatedWord());
         System.out.println(question);
 
         System.out.print("Enter your answer:\n>");
@@ -1,16 +1,20 @@
 package library;
-import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
 
 /**
- * Represents a language
+ * Represents a language. A language and its units, lessons and words can't
+ * be changed once they are made, so one catalog can be shared by every
+ * learner without locking
  * 
  * @author Lea Frost
  */
 public class Language {
 
-    private String languageName;
-    private UnitList unitList;
-    private LanguagesEnum language;
+    private final String languageName;
+    private final UnitList unitList;
+    private final LanguagesEnum language;
+    private volatile CourseGraph courseGraph;
 
     /**
      * Constructs the language
@@ -57,8 +61,89 @@ public class Language {
      *
      * @return The arraylist of units
      */
-    public ArrayList<Unit> getUnits() {
+    public List<Unit> getUnits() {
         return unitList.getUnits();
     }
 
+    /**
+     * Returns the course graph of the language, building it the first time
+     * it is asked for
+     *
+     * @return The course graph
+     */
+    public CourseGraph getCourseGraph() {
+        CourseGraph graph = courseGraph;
+        if (graph == null) {
+            synchronized (this) {
+                graph = courseGraph;
+                if (graph == null) {
+                    graph = new CourseGraph(this);
+                    courseGraph = graph;
+                }
+            }
+        }
+        return graph;
+    }
+
+    /**
+     * Returns the word with the given id from any lesson of the language
+     *
+     * @param wordId The UUID of the word
+     * @return The word, or null if the language has no word with that id
+     */
+    public Word getWordById(UUID wordId) {
+        CatalogIndex.Position position = CatalogIndex.getInstance().getWordPosition(wordId);
+        if (position != null && position.getLanguage() == language) {
+            Word word = getWordAt(position);
+            if (word != null && wordId.equals(word.getId()))
+                return word;
+        }
+        return null;
+    }
+
+    /**
+     * Returns the unit at a catalog position in this language
+     *
+     * @param position The catalog position
+     * @return The unit, or null if there is no unit at that position
+     */
+    Unit getUnitAt(CatalogIndex.Position position) {
+        List<Unit> units = getUnits();
+        if (position.getUnit() < 0 || position.getUnit() >= units.size())
+            return null;
+        return units.get(position.getUnit());
+    }
+
+    /**
+     * Returns the lesson at a catalog position in this language
+     *
+     * @param position The catalog position
+     * @return The lesson, or null if there is no lesson at that position
+     */
+    Lesson getLessonAt(CatalogIndex.Position position) {
+        Unit unit = getUnitAt(position);
+        if (unit == null)
+            return null;
+        List<Lesson> lessons = unit.getLessons();
+        if (position.getLesson() < 0 || position.getLesson() >= lessons.size())
+            return null;
+        return lessons.get(position.getLesson());
+    }
+
+    /**
+     * Returns the word at a catalog position in this language
+     *
+     * @param position The catalog position
+     * @return The word, or null if there is no word at that position
+     */
+    Word getWordAt(CatalogIndex.Position position) {
+        Lesson lesson = getLessonAt(position);
+        if (lesson == null)
+            return null;
+        List<Word> words = lesson.getWords();
+        if (position.getWord() < 0 || position.getWord() >= words.size())
+            return null;
+        return words.get(position.getWord());
+    }
+
 }
@@ -1,23 +1,48 @@
 package library;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 
 /**
  * Language List class
  * Singleton
- * Stores the languages offered, constant among all users
+ * Stores the languages offered, constant among all users, indexed by enum
+ * and by name
  * @author Lea Frost
  */
 
 public class LanguageList {
 
-    private ArrayList<Language> languages;
-    private static LanguageList languageList;
+    private final List<Language> languages;
+    private final EnumMap<LanguagesEnum, Language> languagesByEnum;
+    private final HashMap<String, Language> languagesByName;
 
     /**
-     * Loads language list from data loader (language.json)
+     * Holds the language list, loaded the first time it is asked for
+     */
+    private static class Holder {
+
+        private static final LanguageList INSTANCE = new LanguageList();
+    }
+
+    /**
+     * Loads language list from the compiled catalog image (language.bin),
+     * which is rebuilt from language.json whenever the JSON file changes
      */
     private LanguageList() {
-        languages = DataLoader.getLanguages();
+        ArrayList<Language> loaded = CatalogImage.loadLanguages();
+        languages = Collections.unmodifiableList(loaded == null ? new ArrayList<>() : loaded);
+        languagesByEnum = new EnumMap<>(LanguagesEnum.class);
+        languagesByName = new HashMap<>();
+        for (Language language : languages) {
+            // A language listed twice resolves to its first entry
+            languagesByEnum.putIfAbsent(language.getLanguageEnum(), language);
+            languagesByName.putIfAbsent(language.getLanguageName(), language);
+        }
     }
 
     /**
@@ -26,16 +51,14 @@ public class LanguageList {
      * @return Language list
      */
     public static LanguageList getInstance() {
-        if (languageList == null)
-            languageList = new LanguageList();
-        return languageList;
+        return Holder.INSTANCE;
     }
 
     /**
      * Returns a list of all languages
-     * @return Arraylist of all languages
+     * @return List of all languages, which can't be changed
      */
-    public ArrayList<Language> getLanguages() {
+    public List<Language> getLanguages() {
         return languages;
     }
 
@@ -46,12 +69,7 @@ public class LanguageList {
      * @return The language if it exists in the list
      */
     public Language getLanguage(String languageName) {
-        for (Language language : languages) {
-            if (language.getLanguageName().equals(languageName)) {
-                return language;
-            }
-        }
-        return null;
+        return languagesByName.get(languageName);
     }
 
     /**
@@ -61,10 +79,98 @@ public class LanguageList {
      * @return The language if it exists in the list
      */
     public Language getLanguageByEnum(LanguagesEnum languageEnum) {
-        for (Language language : languages) 
-            if (language.getLanguageEnum().equals(languageEnum)) 
-                return language;
-        return null;
+        if (languageEnum == null)
+            return null;
+        return languagesByEnum.get(languageEnum);
+    }
+
+    /**
+     * Returns the word with the given id from any language
+     * 
+     * @param wordId The UUID of the word
+     * @return The word if it exists in any language
+     */
+    public Word getWordById(UUID wordId) {
+        CatalogIndex.Position position = CatalogIndex.getInstance().getWordPosition(wordId);
+        if (position == null)
+            return null;
+        Language language = getLanguageByEnum(position.getLanguage());
+        return language == null ? null : language.getWordById(wordId);
+    }
+
+    /**
+     * Searches the text, translation and example sentence of every word in
+     * every language, ignoring case and accents. Served from the
+     * WordSearchIndex, so the catalog isn't scanned.
+     * 
+     * @param query The words to search for
+     * @return The catalog positions of the matching words, in catalog order
+     */
+    public ArrayList<CatalogIndex.Position> searchWords(String query) {
+        return WordSearchIndex.getInstance().search(query);
+    }
+
+    /**
+     * Returns the words of a language with the given translation, such as
+     * how to say a word in French. Served from the TranslationIndex, so the
+     * catalog isn't scanned.
+     * 
+     * @param translation The translation, ignoring case and accents
+     * @param languageEnum The language to look in
+     * @return The matching words, in catalog order
+     */
+    public ArrayList<Word> getWordsByTranslation(String translation, LanguagesEnum languageEnum) {
+        ArrayList<Word> words = new ArrayList<>();
+        for (CatalogIndex.Position position : TranslationIndex.getInstance().lookup(translation, languageEnum)) {
+            Word word = getWord(position);
+            if (word != null)
+                words.add(word);
+        }
+        return words;
+    }
+
+    /**
+     * Returns the catalog positions of the words with the given translation
+     * in every language, for reviewing a word across languages
+     * 
+     * @param translation The translation, ignoring case and accents
+     * @return The catalog positions of the matching words by language
+     */
+    public Map<LanguagesEnum, List<CatalogIndex.Position>> getTranslations(String translation) {
+        return TranslationIndex.getInstance().lookup(translation);
+    }
+
+    /**
+     * Returns the unit at a catalog position
+     * 
+     * @param position The catalog position
+     * @return The unit, or null if there is none at that position
+     */
+    public Unit getUnit(CatalogIndex.Position position) {
+        Language language = getLanguageByEnum(position.getLanguage());
+        return language == null ? null : language.getUnitAt(position);
+    }
+
+    /**
+     * Returns the lesson at a catalog position
+     * 
+     * @param position The catalog position
+     * @return The lesson, or null if there is none at that position
+     */
+    public Lesson getLesson(CatalogIndex.Position position) {
+        Language language = getLanguageByEnum(position.getLanguage());
+        return language == null ? null : language.getLessonAt(position);
+    }
+
+    /**
+     * Returns the word at a catalog position
+     * 
+     * @param position The catalog position
+     * @return The word, or null if there is none at that position
+     */
+    public Word getWord(CatalogIndex.Position position) {
+        Language language = getLanguageByEnum(position.getLanguage());
+        return language == null ? null : language.getWordAt(position);
     }
 
     /**
@@ -74,9 +180,6 @@ public class LanguageList {
      * @return True if it's in the list, false if not
      */
     public boolean contains(String languageName){
-        for (Language language : languages)
-            if (language.getLanguageName().equals(languageName))
-                return true;
-        return false;
+        return languagesByName.containsKey(languageName);
     }
 }
@@ -5,6 +5,7 @@ import java.util.UUID;
 public class LanguageSystemFacade {
 
     private User currentUser;
+    private QuestionEngine.Session questionSession;
     private UserList userList;
     private LanguageList languageList;
     private UnitList unitList;
@@ -22,16 +23,19 @@ public class LanguageSystemFacade {
     }
 
     /**
-     * Logs in a user
+     * Logs in a user and starts their session of the default QuestionEngine,
+     * which every lesson they run in this facade makes its questions from
      *
      * @param username username of a user
      * @param password password of a user
      * @return true if the user logged in, false if otherwise
      */
     public User login(String username, String password) {
-        if (userList.userExists(username)) {
-            if (userList.login(username, password)) {
-                currentUser = userList.getUser(username);
+        User user = userList.getUser(username);
+        if (user != null) {
+            if (user.checkPassword(password)) {
+                currentUser = user;
+                questionSession = QuestionEngine.getDefault().newSession();
                 return currentUser;
             } else {
                 System.out.println("Password is incorrect, please try logging in again \n");
@@ -49,7 +53,20 @@ public class LanguageSystemFacade {
      * logged in.
      */
     public boolean logout() {
-        return userList.logout(currentUser);
+        if (!userList.logout(currentUser)) {
+            return false;
+        }
+        questionSession = null;
+        return true;
+    }
+
+    /**
+     * Returns the question session of the logged in user.
+     *
+     * @return the session, or null if no user has logged in
+     */
+    public QuestionEngine.Session getQuestionSession() {
+        return questionSession;
     }
 
     /**
@@ -97,21 +114,36 @@ public class LanguageSystemFacade {
         if (lesson == null) {
             return false;
         }
-        if (lesson.run(this.currentUser)) {
+        if (lesson.run(this.currentUser, questionSession)) {
             System.out.println("You have successfully passed this lesson, so you are moving onto the next one!!!\n");
-            if (!getLessonList().goToNextLesson()) {
-                System.out.println("This unit has no more lessons to take, which means you're moving onto the next unit!!!\n");
-                if (!getUnitList().goToNextUnit()) {
-                    System.out.println("You have completed your language training! Congrats!!\n");
-                }
-            }
-            currentUser.setCurrentLessonId(getLessonList().getCurrentLesson().getId());
-            currentUser.setCurrentUnitId(getUnitList().getCurrentUnit().getId());
+            movePast(lesson);
             saveProgress();
         }
         return false;
     }
 
+    /**
+     * Moves the current user to the lesson after the given one in their
+     * language's course graph.
+     *
+     * @param lesson The lesson the user passed.
+     */
+    private void movePast(Lesson lesson) {
+        CourseCursor cursor = new CourseCursor(currentUser.getLanguage(), null, lesson.getId());
+        if (!cursor.isInCourse()) {
+            return;
+        }
+        if (!cursor.hasNextInUnit()) {
+            System.out.println("This unit has no more lessons to take, which means you're moving onto the next unit!!!\n");
+            if (cursor.isInLastUnit()) {
+                System.out.println("You have completed your language training! Congrats!!\n");
+                return;
+            }
+        }
+        cursor.moveToNext();
+        currentUser.moveTo(cursor);
+    }
+
     /**
      * Runs the pre-assessment (Unit 0) for the current user.
      *
@@ -133,19 +165,10 @@ public class LanguageSystemFacade {
     public boolean runNextLesson() {
         Lesson lesson = this.currentUser.getCurrentLesson();
 
-        if (lesson.run(this.currentUser)) { //User has successfully passed the lesson
+        if (lesson.run(this.currentUser, questionSession)) { //User has successfully passed the lesson
             System.out.println("You have successfully passed this lesson, so you are moving onto the next one!!!\n");
-
-            if (!getLessonList().goToNextLesson()) { // The unit has no more lessons to take, go to next unit
-
-                System.out.println("This unit has no more lessons to take, which means you're moving onto the next unit!!!\n");
-                if (!getUnitList().goToNextUnit()) { // The language has no more units to take, you completed your learning!!
-                    System.out.println("You have completed your language training! Congrats!!\n");
-                }
-            }
+            movePast(lesson);
         }
-        currentUser.setCurrentLessonId(getUnitList().getCurrentUnit().getLessonList().getLesson(0).getId());
-        currentUser.setCurrentUnitId(getUnitList().getCurrentUnit().getId());
 
         return false;
     }
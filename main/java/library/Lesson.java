@@ -1,7 +1,6 @@
 package library;
 
-import java.util.ArrayList;
-import java.util.Random;
+import java.util.List;
 import java.util.UUID;
 
 import narration.Narrator;
@@ -9,21 +8,20 @@ import narration.Narrator;
 import java.util.Scanner;
 
 /**
- * Represents a language lesson, containing questions, words, and progress
- * tracking.
+ * Represents a language lesson, containing questions and words. A lesson
+ * can't be changed once it is made, so it can be shared by every learner; a
+ * learner's score in a lesson is kept by a LessonAttempt.
  *
  * @author Chris Wingo
  */
 public class Lesson {
 
-    private String lessonName;
-    private int lessonNum;
-    private UUID id;
-    private WordList wordList;
-    private int correctAnswerCount;
-    private int wrongAnswerCount;
-    private static final int REQUIRED_CORRECT_ANSWERS = 4;
-    private static final int MAX_WRONG_ANSWERS = 1;
+    private final String lessonName;
+    private final int lessonNum;
+    private final UUID id;
+    private final WordList wordList;
+    private volatile AnswerMatcher answerMatcher;
+    private volatile QuestionPool questionPool;
 
     /**
      * Constructs a lesson with a name, number, and word list.
@@ -33,11 +31,7 @@ public class Lesson {
      * @param wordList The list of words associated with the lesson.
      */
     public Lesson(String lessonName, int lessonNum, WordList wordList) {
-        this.lessonName = lessonName;
-        this.lessonNum = lessonNum;
-        this.wordList = wordList;
-        this.correctAnswerCount = 0;
-        this.wrongAnswerCount = 0;
+        this(null, lessonName, lessonNum, wordList);
     }
 
     /**
@@ -53,8 +47,6 @@ public class Lesson {
         this.lessonName = lessonName;
         this.lessonNum = lessonNum;
         this.wordList = wordList;
-        this.correctAnswerCount = 0;
-        this.wrongAnswerCount = 0;
     }
 
     /**
@@ -87,77 +79,65 @@ public class Lesson {
     /**
      * Returns the list of words associated with the lesson.
      *
-     * @return The list of words.
+     * @return The list of words, which can't be changed.
      */
-    public ArrayList<Word> getWords() {
+    public List<Word> getWords() {
         return wordList.getWords();
     }
 
     /**
-     * Returns a random question from the lesson.
-     *
-     * @return A random question, or null if no questions are available.
-     */
-    public boolean runRandomQuestion(User user) {
-        Random rand = new Random();
-        Question question;
-
-        question = switch (rand.nextInt(4)) {
-            case 0 ->
-                new FillInTheBlank(wordList.getWords());
-            case 1 ->
-                new Matching(wordList.getWords());
-            case 2 ->
-                new MultipleChoice(wordList.getWords());
-            default ->
-                new WordBank(wordList.getWords());
-        };
-
-        return question.run(user);
-    }
-
-    /**
-     * Checks if the user can move to the next lesson based on correct answers.
+     * Returns the matcher that grades typed answers against the lesson's
+     * words, building it the first time it is asked for.
      *
-     * @return true if the user can move to the next lesson, false otherwise.
+     * @return The lesson's answer matcher.
      */
-    public boolean canMoveToNextLesson() {
-        return correctAnswerCount >= REQUIRED_CORRECT_ANSWERS;
+    public AnswerMatcher getAnswerMatcher() {
+        AnswerMatcher matcher = answerMatcher;
+        if (matcher == null) {
+            matcher = new AnswerMatcher(wordList.getWords());
+            answerMatcher = matcher;
+        }
+        return matcher;
     }
 
     /**
-     * Checks if the user should fail current lesson based on wrong answers.
+     * Returns the pool of ready-made questions for the lesson, making it, and
+     * starting to fill it in the background, the first time it is asked for.
      *
-     * @return true if the user failed the next lesson, false otherwise.
-     */
-    public boolean shouldFailCurrentLesson() {
-        return wrongAnswerCount > MAX_WRONG_ANSWERS;
-    }
-
-    /**
-     * Resets the user's progress in the lesson.
+     * @return The lesson's question pool.
      */
-    private void resetProgress() {
-        correctAnswerCount = 0;
-        wrongAnswerCount = 0;
+    public QuestionPool getQuestionPool() {
+        QuestionPool pool = questionPool;
+        if (pool == null) {
+            synchronized (this) {
+                pool = questionPool;
+                if (pool == null) {
+                    pool = new QuestionPool(wordList.getWords(), getAnswerMatcher());
+                    questionPool = pool;
+                }
+            }
+        }
+        return pool;
     }
 
     /**
-     * Returns the number of correct answers.
-     *
-     * @return The correct answer count.
+     * Closes the lesson's question pool, if it has one, so it stops being
+     * refilled once the lesson is unloaded.
      */
-    public int getCorrectAnswerCount() {
-        return correctAnswerCount;
+    void closeQuestionPool() {
+        QuestionPool pool = questionPool;
+        if (pool != null) {
+            pool.close();
+        }
     }
 
     /**
-     * Returns the number of wrong answers.
+     * Returns a random question from the lesson.
      *
-     * @return The wrong answer count.
+     * @return A random question, or null if no questions are available.
      */
-    public int getWrongAnswerCount() {
-        return wrongAnswerCount;
+    public boolean runRandomQuestion(User user) {
+        return getQuestionPool().next().run(user);
     }
 
     /**
@@ -194,44 +174,25 @@ public class Lesson {
 
     /**
      * Method for running a lesson Generates random questions Runs each question
-     * Updates correct/incorrect
+     * Updates correct/incorrect. The score is kept in a new LessonAttempt, so
+     * learners running the same lesson at once don't share a score.
      *
      * @return True if the user can progress to next lesson, false otherwise
      */
     public boolean run(User user) {
-        int questionNum = 1;
-
-        System.out.println("Welcome to " + lessonName + "!");
-
-        learn(); // Allows the user to learn
-
-        resetProgress(); // Reset progress
-
-
-        while (true) { // Run questions
-            System.out.println("Question " + questionNum + ": ");
-            boolean correctQuestion = runRandomQuestion(user);
-
-            if (correctQuestion) {
-                correctAnswerCount++;
+        return new LessonAttempt(this).run(user);
+    }
 
-                //Checks if the lesson is over, by having enough correct answers
-                if (canMoveToNextLesson()) {
-                    System.out.println("You scored " + correctAnswerCount + "/" + questionNum);
-                    System.out.println();
-                    return true;
-                }
-            } else {
-                wrongAnswerCount++;
-
-                //Checks if the lesson is over, by having too many wrong answers
-                if (shouldFailCurrentLesson()) {
-                    System.out.println("You scored " + correctAnswerCount + "/" + questionNum);
-                    System.out.println("You did not move on to the next lesson");
-                    return false;
-                }
-            }
-            questionNum++;
-        }
+    /**
+     * Runs the lesson with questions made from a learner's QuestionEngine
+     * session, so the same seed asks the same questions again.
+     *
+     * @param user The user taking the lesson.
+     * @param session The learner's session, or null to take any ready
+     * question from the lesson's question pool.
+     * @return True if the user can progress to next lesson, false otherwise
+     */
+    public boolean run(User user, QuestionEngine.Session session) {
+        return new LessonAttempt(this, session).run(user);
     }
 }
@@ -0,0 +1,145 @@
+package library;
+
+/**
+ * One learner's attempt at a lesson. The lesson itself is shared by every
+ * learner, so the score of an attempt is kept here, in an object owned by the
+ * learner's session, instead of in the lesson.
+ *
+ * @author Chris Wingo
+ */
+public class LessonAttempt {
+
+    private static final int REQUIRED_CORRECT_ANSWERS = 4;
+    private static final int MAX_WRONG_ANSWERS = 1;
+
+    private final Lesson lesson;
+    private final QuestionEngine.Session session;
+    private int correctAnswerCount;
+    private int wrongAnswerCount;
+
+    /**
+     * Starts an attempt at a lesson with no answers yet.
+     *
+     * @param lesson The lesson being attempted.
+     */
+    public LessonAttempt(Lesson lesson) {
+        this(lesson, null);
+    }
+
+    /**
+     * Starts an attempt at a lesson with no answers yet, whose questions are
+     * made from a session of a QuestionEngine, so the same seed asks the
+     * same questions again.
+     *
+     * @param lesson The lesson being attempted.
+     * @param session The session questions are made from, or null to take
+     * any ready question from the lesson's question pool.
+     */
+    public LessonAttempt(Lesson lesson, QuestionEngine.Session session) {
+        this.lesson = lesson;
+        this.session = session;
+    }
+
+    /**
+     * Returns the lesson being attempted.
+     *
+     * @return The lesson.
+     */
+    public Lesson getLesson() {
+        return lesson;
+    }
+
+    /**
+     * Records the result of a question.
+     *
+     * @param correct true if the question was answered correctly.
+     */
+    public void recordAnswer(boolean correct) {
+        if (correct) {
+            correctAnswerCount++;
+        } else {
+            wrongAnswerCount++;
+        }
+    }
+
+    /**
+     * Checks if the user can move to the next lesson based on correct answers.
+     *
+     * @return true if the user can move to the next lesson, false otherwise.
+     */
+    public boolean canMoveToNextLesson() {
+        return correctAnswerCount >= REQUIRED_CORRECT_ANSWERS;
+    }
+
+    /**
+     * Checks if the user should fail current lesson based on wrong answers.
+     *
+     * @return true if the user failed the lesson, false otherwise.
+     */
+    public boolean shouldFailCurrentLesson() {
+        return wrongAnswerCount > MAX_WRONG_ANSWERS;
+    }
+
+    /**
+     * Returns the number of correct answers.
+     *
+     * @return The correct answer count.
+     */
+    public int getCorrectAnswerCount() {
+        return correctAnswerCount;
+    }
+
+    /**
+     * Returns the number of wrong answers.
+     *
+     * @return The wrong answer count.
+     */
+    public int getWrongAnswerCount() {
+        return wrongAnswerCount;
+    }
+
+    /**
+     * Returns the number of questions answered.
+     *
+     * @return The question count.
+     */
+    public int getQuestionCount() {
+        return correctAnswerCount + wrongAnswerCount;
+    }
+
+    /**
+     * Runs the attempt: the user learns the lesson's words, then answers
+     * random questions until they have enough correct answers to pass or too
+     * many wrong answers.
+     *
+     * @param user The user taking the lesson.
+     * @return True if the user can progress to next lesson, false otherwise
+     */
+    public boolean run(User user) {
+        System.out.println("Welcome to " + lesson.getLessonName() + "!");
+
+        lesson.learn(); // Allows the user to learn
+
+        while (true) { // Run questions
+            System.out.println("Question " + (getQuestionCount() + 1) + ": ");
+            if (session == null) {
+                recordAnswer(lesson.runRandomQuestion(user));
+            } else {
+                recordAnswer(session.nextQuestion(lesson).run(user));
+            }
+
+            //Checks if the lesson is over, by having enough correct answers
+            if (canMoveToNextLesson()) {
+                System.out.println("You scored " + correctAnswerCount + "/" + getQuestionCount());
+                System.out.println();
+                return true;
+            }
+            //Checks if the lesson is over, by having too many wrong answers
+            if (shouldFailCurrentLesson()) {
+                System.out.println("You scored " + correctAnswerCount + "/" + getQuestionCount());
+                System.out.println("You did not move on to the next lesson");
+                return false;
+            }
+        }
+    }
+}
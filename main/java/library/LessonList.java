@@ -1,75 +1,121 @@
 package library;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.UUID;
+import java.util.function.Supplier;
 
 /**
- * Represents a list of lessons. This class provides methods to add, remove, and
- * manage lessons within the list. It also keeps track of the current lesson
- * index for easy navigation.
+ * Represents a list of lessons. A lesson list can't be changed once it is
+ * made, so one list can be shared by every learner without locking; where a
+ * learner is in the list is kept by their CourseCursor. A lesson list can also
+ * be lazy, in which case its lessons are only loaded the first time they are
+ * used and may be unloaded again by the CatalogCache.
  *
  * @author Madeleine McBride and Cody Miller
  */
 public class LessonList {
 
-    private ArrayList<Lesson> lessons;
-    private int currentLessonIndex;
+    private volatile List<Lesson> lessons;
+    private final Supplier<ArrayList<Lesson>> loader;
 
     /**
      * Constructs a LessonList with the specified list of lessons.
      *
      * @param lessons the initial list of lessons
      */
-    public LessonList(ArrayList<Lesson> lessons) {
-        this.lessons = lessons;
-        this.currentLessonIndex = 0;
-    }
-
-    public Lesson getLessonById(UUID LessonID) {
-        for (Lesson lesson : lessons) {
-            if (lesson.getId().equals(LessonID)) {
-                return lesson;
-            }
-        }
-        return null;
+    public LessonList(List<Lesson> lessons) {
+        this.lessons = Collections.unmodifiableList(new ArrayList<>(lessons));
+        this.loader = null;
     }
 
     /**
-     * Adds a lesson to the lesson list.
+     * Constructs a lazy LessonList whose lessons are loaded the first time
+     * they are used.
      *
-     * @param lesson the lesson to add
+     * @param loader loads the list of lessons
      */
-    public void addLesson(Lesson lesson) {
-        this.lessons.add(lesson);
+    public LessonList(Supplier<ArrayList<Lesson>> loader) {
+        this.loader = loader;
     }
 
     /**
-     * Removes a lesson from the lesson list.
-     *
-     * @param lesson the lesson to remove
+     * Returns the lessons, loading them first if this is a lazy lesson list
+     * that hasn't been loaded yet or has been unloaded.
      */
-    public void removeLesson(Lesson lesson) {
-        this.lessons.remove(lesson);
+    private List<Lesson> lessons() {
+        List<Lesson> current = lessons;
+        if (loader == null) {
+            return current;
+        }
+        if (current != null) {
+            CatalogCache.getInstance().touched(this);
+            return current;
+        }
+
+        int words = 0;
+        synchronized (this) {
+            current = lessons;
+            if (current == null) {
+                current = Collections.unmodifiableList(loader.get());
+                lessons = current;
+            }
+        }
+        for (Lesson lesson : current) {
+            words += lesson.getWords().size();
+        }
+        CatalogCache.getInstance().added(this, words);
+        return current;
     }
 
     /**
-     * Restarts the lesson list by setting the current lesson index to 0.
+     * Unloads the lessons of a lazy lesson list, they are loaded again the
+     * next time they are used. The question pools of the unloaded lessons
+     * stop being refilled.
      */
-    public void restartLessons() {
-        this.currentLessonIndex = 0;
+    synchronized void unload() {
+        List<Lesson> current = lessons;
+        if (loader != null && current != null) {
+            lessons = null;
+            for (Lesson lesson : current) {
+                lesson.closeQuestionPool();
+            }
+        }
     }
 
     /**
-     * Returns the current lesson based on the current lesson index.
+     * Returns the lesson with the given id.
      *
-     * @return the current lesson, or null if the list is empty or the index is
-     * out of bounds
+     * @param LessonID the id of the lesson
+     * @return the lesson, or null if it isn't in the list
+     */
+    public Lesson getLessonById(UUID LessonID) {
+        List<Lesson> lessons = lessons();
+        int index = indexOf(lessons, LessonID);
+        return index == -1 ? null : lessons.get(index);
+    }
+
+    /**
+     * Returns the position of a lesson in the list. The position is looked up
+     * in the CatalogIndex, and the list is only scanned for lists the index
+     * doesn't cover, such as ones built straight from the language file.
      */
-    public Lesson getCurrentLesson() {
-        if (!lessons.isEmpty() && currentLessonIndex < lessons.size()) {
-            return lessons.get(currentLessonIndex);
+    private static int indexOf(List<Lesson> lessons, UUID lessonId) {
+        if (lessonId == null) {
+            return -1;
         }
-        return null;
+        CatalogIndex.Position position = CatalogIndex.getInstance().getLessonPosition(lessonId);
+        if (position != null && position.getLesson() < lessons.size()
+                && lessonId.equals(lessons.get(position.getLesson()).getId())) {
+            return position.getLesson();
+        }
+        for (int i = 0; i < lessons.size(); i++) {
+            if (lessonId.equals(lessons.get(i).getId())) {
+                return i;
+            }
+        }
+        return -1;
     }
 
     /**
@@ -80,6 +126,7 @@ public class LessonList {
      * bounds
      */
     public Lesson getLesson(int index) {
+        List<Lesson> lessons = lessons();
         if (index >= 0 && index < lessons.size()) {
             return lessons.get(index);
         }
@@ -89,10 +136,10 @@ public class LessonList {
     /**
      * Returns the list of all lessons.
      *
-     * @return the list of lessons
+     * @return the list of lessons, which can't be changed
      */
-    public ArrayList<Lesson> getLessons() {
-        return lessons;
+    public List<Lesson> getLessons() {
+        return lessons();
     }
 
     /**
@@ -103,39 +150,25 @@ public class LessonList {
      * not found
      */
     public Lesson nextLesson(Lesson currentLesson) {
-        int index = lessons.indexOf(currentLesson);
+        if (currentLesson == null) {
+            return null;
+        }
+        // Matched by id, a lazy list may have been reloaded since currentLesson was read
+        List<Lesson> lessons = lessons();
+        int index = indexOf(lessons, currentLesson.getId());
         if (index != -1 && index < lessons.size() - 1) {
             return lessons.get(index + 1);
         }
         return null;
     }
 
-    /**
-     * Goes to the next lesson, following the specified current lesson.
-     *
-     * @return true if successfully went to next lesson, false if it was the
-     * last lesson
-     */
-    public boolean goToNextLesson() {
-        int index = lessons.indexOf(currentLessonIndex);
-        if (index != -1 && index < lessons.size() - 1) {
-            currentLessonIndex++;
-            return true;
-        }
-        return false;
-    }
-
     /**
      * Returns the number of lessons in the list.
      *
      * @return the lesson count
      */
     public int getLessonCount() {
-        return lessons.size();
-    }
-
-    public int getCurrentLessonIndex() {
-        return currentLessonIndex;
+        return lessons().size();
     }
 
     /**
@@ -143,7 +176,7 @@ public class LessonList {
      * console.
      */
     public void displayLessons() {
-        for (Lesson lesson : lessons) {
+        for (Lesson lesson : lessons()) {
             System.out.println(lesson.toString());
         }
     }
@@ -1,10 +1,10 @@
 package library;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashMap;
-import java.util.Random;
+import java.util.List;
 import java.util.Scanner;
+import java.util.SplittableRandom;
 
 import narration.Narrator;
 
@@ -21,64 +21,53 @@ public class Matching implements Question {
     private ArrayList<String> englishWords;
     private ArrayList<String> foreignWords;
     private ArrayList<Word> originalWords;
+    private AnswerMatcher answerMatcher;
 
     /**
      * Constructor for the Matching class, creates a random question based off
      * of list of testable words
      *
-     * @param words ArrayList of the lesson's quizzable words
+     * @param words the lesson's quizzable words, which aren't changed
      */
-    public Matching(ArrayList<Word> words) {
-        englishWords = new ArrayList<>();
-        foreignWords = new ArrayList<>();
-        answers = new HashMap<>();
-        originalWords = new ArrayList<>();
-
-        Collections.shuffle(words);
-
-        for (int i = 3; i >= 0; i--) { //Populating the answers, english, and foreign word lists/maps
-            Word word = words.get(i);
-            englishWords.add(word.getTranslatedWord());
-            foreignWords.add(word.getForeignWord());
-            answers.put(word.getTranslatedWord(), word.getForeignWord());
-            originalWords.add(word);
-        }
-
-        Collections.shuffle(englishWords);
-        Collections.shuffle(foreignWords);
+    public Matching(List<Word> words) {
+        this(words, AnswerMatcher.EXPECTED_ONLY, QuestionEngine.getDefault().forCurrentThread());
     }
 
     /**
-     * Constructor for the Matching class, creates a random question based off on the seed
+     * Constructor for the Matching class, creates a random question based off
+     * of list of testable words, graded with the lesson's answer matcher
      *
-     * @param words ArrayList of the lesson's quizzable words
-     * @param seed random seed
+     * @param words the lesson's quizzable words, which aren't changed
+     * @param answerMatcher the lesson's answer matcher
      */
-    public Matching(ArrayList<Word> words, int seed) {
-        Random rand = new Random(seed);
+    public Matching(List<Word> words, AnswerMatcher answerMatcher) {
+        this(words, answerMatcher, QuestionEngine.getDefault().forCurrentThread());
+    }
 
-        englishWords = new ArrayList<>();
-        foreignWords = new ArrayList<>();
+    /**
+     * Draws four distinct words to match. The English words are listed in the
+     * order they were drawn, which is random, and the foreign words are
+     * shuffled separately. The random stream is the question's, see
+     * QuestionEngine.
+     *
+     * @param words the lesson's quizzable words, which aren't changed
+     * @param answerMatcher the lesson's answer matcher
+     * @param rand the question's random stream
+     */
+    Matching(List<Word> words, AnswerMatcher answerMatcher, SplittableRandom rand) {
+        this.answerMatcher = answerMatcher;
+        originalWords = WordSampler.sample(words, 4, rand);
+        englishWords = new ArrayList<>(originalWords.size());
+        foreignWords = new ArrayList<>(originalWords.size());
         answers = new HashMap<>();
-        originalWords = new ArrayList<>();
 
-        Collections.shuffle(words,rand);
-
-        for (int i = 3; i >= 0; i--) { //Populating the answers, english, and foreign word lists/maps
-            Word word = words.get(i);
+        for (Word word : originalWords) { //Populating the answers, english, and foreign word lists/maps
             englishWords.add(word.getTranslatedWord());
             foreignWords.add(word.getForeignWord());
             answers.put(word.getTranslatedWord(), word.getForeignWord());
-            originalWords.add(word);
         }
 
-        Collections.shuffle(englishWords,rand);
-        Collections.shuffle(foreignWords,rand);
-
-        System.out.println("Correct Answers::: ");
-        for(int i = 0; i<4; i++) {
-            System.out.println(englishWords.get(i));
-        }
+        WordSampler.shuffle(foreignWords, rand);
     }
 
     /**
@@ -197,7 +186,7 @@ public class Matching implements Question {
         Scanner scan = new Scanner(System.in);
         String userAnswer = scan.nextLine();
 
-        if (!answers.get(englishWords.get(cycle)).equalsIgnoreCase(userAnswer)) {
+        if (!answerMatcher.matches(answers.get(englishWords.get(cycle)), userAnswer)) {
             user.addProblemWord(originalWords.get(cycle));
             return false;
         }
@@ -213,7 +202,7 @@ public class Matching implements Question {
     public boolean answerPart(int cycle, User user, String userAnswer) {
         System.out.print(englishWords.get(cycle) + " -> ");
 
-        if (!answers.get(englishWords.get(cycle)).equalsIgnoreCase(userAnswer)) {
+        if (!answerMatcher.matches(answers.get(englishWords.get(cycle)), userAnswer)) {
             user.addProblemWord(originalWords.get(cycle));
             return false;
         }
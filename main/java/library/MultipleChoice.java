@@ -1,9 +1,9 @@
 package library;
 
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Random;
+import java.util.List;
 import java.util.Scanner;
+import java.util.SplittableRandom;
 
 import narration.Narrator;
 
@@ -25,50 +25,31 @@ public class MultipleChoice implements Question {
      * Constructor for the MultipleChoice class, creates a random question based
      * off of list of testable words
      *
-     * @param words ArrayList of the lesson's quizzable words
+     * @param words the lesson's quizzable words, which aren't changed
      */
-    public MultipleChoice(ArrayList<Word> words) {
-        this.choices = new ArrayList<>();
-
-        Collections.shuffle(words);
-
-        this.word = words.get(0);
-        this.answer = words.get(0).getForeignWord();
-        this.question = words.get(0).getExampleSentence();
-        this.choices.add(answer);
-
-        for (int i = 1; i < 4; i++) { //Populating the answers, english, and foreign word lists/maps
-            choices.add(words.get(i).getForeignWord());
-        }
-
-        Collections.shuffle(this.choices);
-        correctIndex = choices.indexOf(answer);
+    public MultipleChoice(List<Word> words) {
+        this(words, QuestionEngine.getDefault().forCurrentThread());
     }
 
     /**
-     * Constructor for the MultipleChoice class, creates a random question based on the seed
+     * Draws four distinct words as the choices, already in random order, and
+     * makes one of them the answer. The random stream is the question's, see
+     * QuestionEngine.
      *
-     * @param words ArrayList of the lesson's quizzable words
-     * @param seed random seed
+     * @param words the lesson's quizzable words, which aren't changed
+     * @param rand the question's random stream
      */
-    public MultipleChoice(ArrayList<Word> words, int seed) {
-        Random rand = new Random(seed);
-
-        this.choices = new ArrayList<>();
-
-        Collections.shuffle(words,rand);
-
-        this.word = words.get(0);
-        this.answer = words.get(0).getForeignWord();
-        this.question = words.get(0).getExampleSentence();
-        this.choices.add(answer);
-
-        for (int i = 1; i < 4; i++) { //Populating the answers, english, and foreign word lists/maps
-            choices.add(words.get(i).getForeignWord());
+    MultipleChoice(List<Word> words, SplittableRandom rand) {
+        ArrayList<Word> sample = WordSampler.sample(words, 4, rand);
+        this.choices = new ArrayList<>(sample.size());
+        for (Word choice : sample) {
+            choices.add(choice.getForeignWord());
         }
 
-        Collections.shuffle(this.choices,rand);
-        correctIndex = choices.indexOf(answer);
+        this.correctIndex = rand.nextInt(sample.size());
+        this.word = sample.get(correctIndex);
+        this.answer = word.getForeignWord();
+        this.question = word.getExampleSentence();
     }
 
     /**
@@ -130,7 +111,7 @@ public class MultipleChoice implements Question {
      */
     @Override
     public QuestionType getQuestionType() {
-        return QuestionType.MATCHING;
+        return QuestionType.MULTIPLE_CHOICE;
     }
 
     /**
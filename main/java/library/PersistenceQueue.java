@@ -0,0 +1,148 @@
+package library;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Singleton write-behind stage for saving users. Callers request a save and
+ * return immediately; the requests are coalesced and written by a background
+ * thread in one flush, either when the flush interval elapses or when enough
+ * requests have piled up. Pending saves are flushed on shutdown so nothing
+ * requested before exit is lost.
+ */
+public class PersistenceQueue {
+
+    private static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 2000;
+    private static final int DEFAULT_MAX_PENDING_SAVES = 16;
+
+    private static PersistenceQueue persistenceQueue;
+
+    private ScheduledExecutorService executor;
+    private ScheduledFuture<?> periodicFlush;
+    private AtomicInteger pendingSaves;
+    private volatile int maxPendingSaves;
+    private volatile boolean shutdown;
+
+    /**
+     * Starts the background flush thread and registers a shutdown hook that
+     * flushes any pending saves when the JVM exits.
+     */
+    private PersistenceQueue() {
+        pendingSaves = new AtomicInteger();
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "user-persistence");
+            thread.setDaemon(true);
+            return thread;
+        });
+        setFlushPolicy(DEFAULT_FLUSH_INTERVAL_MILLIS, DEFAULT_MAX_PENDING_SAVES);
+        Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown));
+    }
+
+    /**
+     * Returns the singleton instance of PersistenceQueue, creating it if
+     * necessary.
+     *
+     * @return The singleton instance of PersistenceQueue.
+     */
+    public static synchronized PersistenceQueue getInstance() {
+        if (persistenceQueue == null) {
+            persistenceQueue = new PersistenceQueue();
+        }
+        return persistenceQueue;
+    }
+
+    /**
+     * Sets when pending saves are flushed.
+     *
+     * @param flushIntervalMillis time between background flushes
+     * @param maxPendingSaves number of pending saves that triggers an early
+     * flush
+     */
+    public synchronized void setFlushPolicy(long flushIntervalMillis, int maxPendingSaves) {
+        if (flushIntervalMillis <= 0 || maxPendingSaves <= 0) {
+            throw new IllegalArgumentException("Flush interval and pending save limit must be positive");
+        }
+        this.maxPendingSaves = maxPendingSaves;
+        if (periodicFlush != null) {
+            periodicFlush.cancel(false);
+        }
+        periodicFlush = executor.scheduleWithFixedDelay(this::flushPending, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Requests that the users be saved. Returns without writing anything;
+     * the save happens on the next flush. After shutdown the save is written
+     * straight away.
+     */
+    public void requestSave() {
+        if (shutdown) {
+            DataWriter.saveUsers();
+            return;
+        }
+        if (pendingSaves.incrementAndGet() >= maxPendingSaves) {
+            try {
+                executor.execute(this::flushPending);
+            } catch (RejectedExecutionException e) {
+                // Shut down since the check above, write it here instead
+                flushPending();
+            }
+        } else if (shutdown) {
+            // Shut down since the check above, its last flush may have missed this save
+            flushPending();
+        }
+    }
+
+    /**
+     * Returns the number of saves requested since the last flush.
+     *
+     * @return the pending save count
+     */
+    public int getPendingSaves() {
+        return pendingSaves.get();
+    }
+
+    /**
+     * Writes any pending saves now, on the calling thread.
+     */
+    public void flush() {
+        flushPending();
+    }
+
+    /**
+     * Stops the background thread and writes any pending saves. Safe to call
+     * more than once.
+     */
+    public void shutdown() {
+        shutdown = true;
+        executor.shutdown();
+        try {
+            executor.awaitTermination(DEFAULT_FLUSH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flushPending();
+    }
+
+    /**
+     * Writes the users once for every save requested since the last flush.
+     * Synchronized so a shutdown flush waits for a background flush in
+     * progress.
+     */
+    private synchronized void flushPending() {
+        int pending = pendingSaves.getAndSet(0);
+        if (pending == 0) {
+            return;
+        }
+        try {
+            DataWriter.saveUsers();
+        } catch (RuntimeException e) {
+            // Keep the requests so the next flush tries again
+            pendingSaves.addAndGet(pending);
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package library;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.UUID;
+
+/**
+ * Append-only journal of user progress. Every saved lesson adds one small
+ * record (user id, unit id, lesson id, timestamp) to the end of the journal
+ * instead of rewriting the whole users file. When the users are loaded the
+ * journal is replayed over the last snapshot. Before the users are written
+ * again the journal is rotated aside, so records appended while the
+ * snapshot is written go to a fresh journal, and the rotated journal is
+ * only deleted once the snapshot has been written. Each user file records
+ * when its snapshot was taken, and only records written after that are
+ * replayed over it, so an old record never rolls a user back.
+ */
+public class ProgressJournal extends DataConstants {
+
+    private static final String SEPARATOR = ",";
+    private static final int RECORD_FIELDS = 4;
+    private static final String ROTATED_SUFFIX = ".rotated";
+
+    private ProgressJournal() {
+    }
+
+    /**
+     * The progress a journal record holds for one user.
+     */
+    public static class Record {
+
+        private final UUID unitId;
+        private final UUID lessonId;
+        private final long time;
+
+        Record(UUID unitId, UUID lessonId, long time) {
+            this.unitId = unitId;
+            this.lessonId = lessonId;
+            this.time = time;
+        }
+
+        public UUID getUnitId() {
+            return unitId;
+        }
+
+        public UUID getLessonId() {
+            return lessonId;
+        }
+
+        /**
+         * Returns when the record was written.
+         *
+         * @return the time, in milliseconds since the epoch
+         */
+        public long getTime() {
+            return time;
+        }
+    }
+
+    /**
+     * Appends the current progress of a user to the journal.
+     *
+     * @param user the user whose progress is recorded
+     */
+    public static synchronized void append(User user) {
+        String record;
+        // Locked so the unit and lesson are read from the same move
+        synchronized (user) {
+            record = user.getId() + SEPARATOR + user.getUnitId() + SEPARATOR + user.getLessonId()
+                    + SEPARATOR + System.currentTimeMillis() + System.lineSeparator();
+        }
+
+        try (FileWriter writer = new FileWriter(getJournalPath(), true)) {
+            writer.write(record);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Replays the journal over a freshly loaded list of users. Later records
+     * win over earlier ones, and records for unknown users are skipped.
+     *
+     * @param users the users loaded from the last snapshot
+     * @return the number of users updated
+     */
+    public static int replay(ArrayList<User> users) {
+        if (users == null) {
+            return 0;
+        }
+        HashMap<UUID, Record> progress = read();
+        int applied = 0;
+        for (User user : users) {
+            if (apply(user, progress.get(user.getId()))) {
+                applied++;
+            }
+        }
+        return applied;
+    }
+
+    /**
+     * Reads the journal and returns the latest progress of every user in
+     * it, by the time the records were written. A rotated journal left by an
+     * unfinished checkpoint is read as well. Records that were only partly
+     * written are skipped.
+     *
+     * @return map from user id to the user's latest record
+     */
+    public static synchronized HashMap<UUID, Record> read() {
+        HashMap<UUID, Record> progress = new HashMap<>();
+        read(new File(getJournalPath() + ROTATED_SUFFIX), progress);
+        read(new File(getJournalPath()), progress);
+        return progress;
+    }
+
+    private static void read(File journal, HashMap<UUID, Record> progress) {
+        if (!journal.exists()) {
+            return;
+        }
+
+        try (BufferedReader reader = new BufferedReader(new FileReader(journal))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split(SEPARATOR);
+                if (fields.length != RECORD_FIELDS) {
+                    continue;
+                }
+                try {
+                    Record record = new Record(UUID.fromString(fields[1]), UUID.fromString(fields[2]),
+                            Long.parseLong(fields[3].trim()));
+                    progress.merge(UUID.fromString(fields[0]), record,
+                            (older, newer) -> newer.time >= older.time ? newer : older);
+                } catch (IllegalArgumentException e) {
+                    // Torn or corrupt record, skip it
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Applies a progress record returned by read to a user, unless the
+     * user's snapshot was taken after the record was written and so already
+     * holds that progress or later.
+     *
+     * @param user the user to update
+     * @param record the user's record, or null if the journal has nothing
+     * for the user
+     * @return true if the user was updated
+     */
+    public static boolean apply(User user, Record record) {
+        if (user == null || record == null || record.time <= user.getSavedAt()) {
+            return false;
+        }
+        user.setCurrentUnitId(record.unitId);
+        user.setCurrentLessonId(record.lessonId);
+        return true;
+    }
+
+    /**
+     * Moves the journal aside before a snapshot of the users is written.
+     * Records appended from now on go to a new journal and survive the
+     * checkpoint. If a rotated journal is still there from a checkpoint that
+     * failed, the journal is added to the end of it instead.
+     *
+     * @return true if the journal was rotated or was already empty
+     */
+    public static synchronized boolean rotate() {
+        File journal = new File(getJournalPath());
+        if (!journal.exists()) {
+            return true;
+        }
+        File rotated = new File(getJournalPath() + ROTATED_SUFFIX);
+        try {
+            if (rotated.exists()) {
+                Files.write(rotated.toPath(), Files.readAllBytes(journal.toPath()), StandardOpenOption.APPEND);
+                Files.delete(journal.toPath());
+            } else {
+                Files.move(journal.toPath(), rotated.toPath());
+            }
+            return true;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * Deletes the rotated journal. Only called once a full snapshot
+     * containing every rotated record has been written.
+     */
+    public static synchronized void discardRotated() {
+        try {
+            Files.deleteIfExists(new File(getJournalPath() + ROTATED_SUFFIX).toPath());
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static String getJournalPath() {
+        try {
+            if (isJUnitTest()) {
+                URI url = ProgressJournal.class.getResource(USERS_FILE_NAME_JUNIT).toURI();
+                return new File(new File(url.getPath()).getParentFile(), new File(PROGRESS_FILE_NAME_JUNIT).getName()).getPath();
+            } else {
+                return PROGRESS_FILE_NAME;
+            }
+        } catch (Exception e) {
+            System.out.println("Difficulty getting journal path");
+            return PROGRESS_FILE_NAME;
+        }
+    }
+}
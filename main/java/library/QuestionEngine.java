@@ -0,0 +1,232 @@
+package library;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Makes every question from one seed. The engine's root SplittableRandom is
+ * split once for each learner session, and a session draws the seed of each
+ * question from its stream, so every question gets its own independent
+ * random stream. An engine made with the same seed, given the same sessions
+ * and lessons in the same order, makes the same questions again, which lets
+ * a session be replayed. Sessions and questions draw from their own streams,
+ * so threads only share the engine when a session is started.
+ * <p>
+ * A session draws the seeds of its next few questions ahead of time and has
+ * the lesson's QuestionPool make those questions in the background, so the
+ * learner doesn't wait for them. A question is the same whichever thread
+ * makes it from its seed. Questions made without a session, such as those a
+ * QuestionPool keeps ready, draw from a stream split off for each thread.
+ */
+public class QuestionEngine {
+
+    private static final QuestionType[] QUESTION_TYPES = QuestionType.values();
+
+    private static volatile QuestionEngine defaultEngine = new QuestionEngine(new SplittableRandom().nextLong());
+
+    private final long seed;
+    private final SplittableRandom root;
+    private final ThreadLocal<SplittableRandom> threadStreams;
+
+    /**
+     * A learner session's stream of questions. A session belongs to one
+     * learner and isn't safe to share between threads.
+     */
+    public static class Session {
+
+        private static final int PREFETCH_DEPTH = 2;
+
+        private final SplittableRandom random;
+        private final ArrayDeque<Prepared> prepared;
+
+        private Session(SplittableRandom random) {
+            this.random = random;
+            this.prepared = new ArrayDeque<>();
+        }
+
+        /**
+         * A question whose seed has been drawn and which is being made for
+         * a lesson in the background.
+         */
+        private static class Prepared {
+
+            private final long seed;
+            private final Lesson lesson;
+            private final FutureTask<Question> question;
+
+            private Prepared(long seed, Lesson lesson) {
+                this.seed = seed;
+                this.lesson = lesson;
+                this.question = lesson.getQuestionPool().prepare(seed);
+            }
+        }
+
+        /**
+         * Returns a question of a random type for a lesson, and starts
+         * making the next ones in the background.
+         *
+         * @param lesson the lesson
+         * @return the question
+         */
+        public Question nextQuestion(Lesson lesson) {
+            retarget(lesson);
+            while (prepared.size() <= PREFETCH_DEPTH) {
+                prepared.add(new Prepared(random.nextLong(), lesson));
+            }
+            Prepared next = prepared.poll();
+            // Made on this thread if no pool thread has started on it yet
+            next.question.run();
+            try {
+                return next.question.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return generate(lesson.getWords(), lesson.getAnswerMatcher(), new SplittableRandom(next.seed));
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+
+        /**
+         * Makes a question of the given type for a lesson. It takes the
+         * next seed in turn, so it doesn't change the questions that follow.
+         *
+         * @param type the type of question
+         * @param lesson the lesson
+         * @return the question
+         */
+        public Question nextQuestion(QuestionType type, Lesson lesson) {
+            Prepared next = prepared.poll();
+            long seed = next != null ? next.seed : random.nextLong();
+            if (next != null) {
+                next.question.cancel(false);
+            }
+            return generate(type, lesson.getWords(), lesson.getAnswerMatcher(), new SplittableRandom(seed));
+        }
+
+        /**
+         * Remakes the questions prepared for another lesson for this one,
+         * from the same seeds, so the seeds are still used in turn.
+         */
+        private void retarget(Lesson lesson) {
+            Prepared first = prepared.peek();
+            if (first == null || first.lesson == lesson) {
+                return;
+            }
+            int count = prepared.size();
+            for (int i = 0; i < count; i++) {
+                Prepared old = prepared.poll();
+                old.question.cancel(false);
+                prepared.add(new Prepared(old.seed, lesson));
+            }
+        }
+    }
+
+    /**
+     * Makes an engine with the given seed.
+     *
+     * @param seed the seed every question is made from
+     */
+    public QuestionEngine(long seed) {
+        this.seed = seed;
+        this.root = new SplittableRandom(seed);
+        this.threadStreams = ThreadLocal.withInitial(this::split);
+    }
+
+    /**
+     * Returns the engine questions are made with when no other engine is
+     * given. It starts with a random seed.
+     *
+     * @return the default engine
+     */
+    public static QuestionEngine getDefault() {
+        return defaultEngine;
+    }
+
+    /**
+     * Sets the engine questions are made with when no other engine is given,
+     * for example to replay a run with the seed it was made from.
+     *
+     * @param engine the new default engine
+     */
+    public static void setDefault(QuestionEngine engine) {
+        if (engine == null) {
+            throw new IllegalArgumentException("Engine must not be null");
+        }
+        defaultEngine = engine;
+    }
+
+    /**
+     * Returns the seed the engine was made with, to replay it later.
+     *
+     * @return the seed
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Starts a learner session with its own stream split off the engine.
+     *
+     * @return the session
+     */
+    public Session newSession() {
+        return new Session(split());
+    }
+
+    /**
+     * Makes a question of the given type. This is the one way questions are
+     * made from a random stream; the question draws everything random from
+     * the stream it is given.
+     *
+     * @param type the type of question
+     * @param words the lesson's words, which aren't changed
+     * @param answerMatcher the lesson's answer matcher
+     * @param random the question's random stream
+     * @return the question
+     */
+    public static Question generate(QuestionType type, List<Word> words, AnswerMatcher answerMatcher, SplittableRandom random) {
+        return switch (type) {
+            case FILL_IN_THE_BLANK ->
+                new FillInTheBlank(words, answerMatcher, random);
+            case MATCHING ->
+                new Matching(words, answerMatcher, random);
+            case MULTIPLE_CHOICE ->
+                new MultipleChoice(words, random);
+            case WORD_BANK ->
+                new WordBank(words, answerMatcher, random);
+        };
+    }
+
+    /**
+     * Makes a question of a random type, drawn from the question's stream.
+     *
+     * @param words the lesson's words, which aren't changed
+     * @param answerMatcher the lesson's answer matcher
+     * @param random the question's random stream
+     * @return the question
+     */
+    static Question generate(List<Word> words, AnswerMatcher answerMatcher, SplittableRandom random) {
+        QuestionType type = QUESTION_TYPES[random.nextInt(QUESTION_TYPES.length)];
+        return generate(type, words, answerMatcher, random);
+    }
+
+    /**
+     * Returns the stream of the current thread, split off the engine the
+     * first time the thread asks for it. Only the current thread may use it.
+     *
+     * @return the thread's random stream
+     */
+    SplittableRandom forCurrentThread() {
+        return threadStreams.get();
+    }
+
+    private synchronized SplittableRandom split() {
+        return root.split();
+    }
+}
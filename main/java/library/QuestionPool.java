@@ -0,0 +1,195 @@
+package library;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool of ready-made questions for one lesson. A number of questions of each
+ * QuestionType are made ahead of time by background threads, and handing one
+ * out is a poll from a queue, so learners never wait for a question to be
+ * made. Each question is handed out once. When the questions of a type drop
+ * to the low-water mark, the pool is topped up again in the background. If
+ * the pool of a type runs dry before it is refilled, a question is made on
+ * the spot. Once the lesson is unloaded from the CatalogCache the pool is
+ * closed and is no longer refilled.
+ * <p>
+ * A QuestionEngine session can't take these questions, as it must get the
+ * same questions again for the same seed. Instead the session hands the pool
+ * the seeds of its next questions, and the pool's threads make them ahead of
+ * time.
+ */
+public class QuestionPool {
+
+    private static final int DEFAULT_POOL_SIZE = 8;
+    private static final int DEFAULT_LOW_WATER_MARK = 2;
+    private static final QuestionType[] QUESTION_TYPES = QuestionType.values();
+
+    private static volatile int poolSize = DEFAULT_POOL_SIZE;
+    private static volatile int lowWaterMark = DEFAULT_LOW_WATER_MARK;
+
+    private final List<Word> words;
+    private final AnswerMatcher answerMatcher;
+    private final EnumMap<QuestionType, Shelf> shelves;
+    private volatile boolean closed;
+
+    /**
+     * The ready questions of one type. The count is kept separately, as
+     * counting the queue means walking it.
+     */
+    private static class Shelf {
+
+        private final ConcurrentLinkedQueue<Question> questions = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger size = new AtomicInteger();
+        private final AtomicBoolean refilling = new AtomicBoolean();
+    }
+
+    /**
+     * Holds the background threads shared by every pool, started the first
+     * time a pool is made.
+     */
+    private static class Refiller {
+
+        private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(
+                Math.max(1, Runtime.getRuntime().availableProcessors() / 2), runnable -> {
+                    Thread thread = new Thread(runnable, "question-pool");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Makes the pool for a lesson and starts filling it in the background.
+     *
+     * @param words the lesson's words
+     * @param answerMatcher the lesson's answer matcher
+     */
+    public QuestionPool(List<Word> words, AnswerMatcher answerMatcher) {
+        this.words = words;
+        this.answerMatcher = answerMatcher;
+        this.shelves = new EnumMap<>(QuestionType.class);
+        for (QuestionType type : QUESTION_TYPES) {
+            shelves.put(type, new Shelf());
+        }
+        for (QuestionType type : QUESTION_TYPES) {
+            refill(type);
+        }
+    }
+
+    /**
+     * Sets how many questions of each type pools keep ready, and how low
+     * that may drop before a pool is refilled. Pools already made use the
+     * new sizes from their next refill.
+     *
+     * @param questionsPerType the number of questions of each type to keep
+     * @param lowWaterMark refill once this many questions of a type are left
+     */
+    public static void setPoolPolicy(int questionsPerType, int lowWaterMark) {
+        if (questionsPerType <= 0 || lowWaterMark < 0 || lowWaterMark >= questionsPerType) {
+            throw new IllegalArgumentException("Pool size must be positive and above the low-water mark");
+        }
+        QuestionPool.poolSize = questionsPerType;
+        QuestionPool.lowWaterMark = lowWaterMark;
+    }
+
+    /**
+     * Hands out a question of a random type.
+     *
+     * @return the question
+     */
+    public Question next() {
+        return next(QUESTION_TYPES[QuestionEngine.getDefault().forCurrentThread().nextInt(QUESTION_TYPES.length)]);
+    }
+
+    /**
+     * Hands out a question of the given type.
+     *
+     * @param type the type of question
+     * @return the question, made on the spot if none was ready
+     */
+    public Question next(QuestionType type) {
+        Shelf shelf = shelves.get(type);
+        Question question = shelf.questions.poll();
+        if (question != null) {
+            shelf.size.decrementAndGet();
+        }
+        if (shelf.size.get() <= lowWaterMark) {
+            refill(type);
+        }
+        return question != null ? question : create(type);
+    }
+
+    /**
+     * Returns the number of questions of a type that are ready.
+     *
+     * @param type the type of question
+     * @return the number of ready questions
+     */
+    public int getReadyCount(QuestionType type) {
+        return shelves.get(type).size.get();
+    }
+
+    /**
+     * Starts making a question of a random type from a seed in the
+     * background, for a QuestionEngine session. The question is the same
+     * whichever thread makes it, so the task may also be run by the caller
+     * if no pool thread has started on it. Once the pool is closed, the task
+     * is left for the caller to run.
+     *
+     * @param seed the seed of the question's random stream
+     * @return the task making the question
+     */
+    FutureTask<Question> prepare(long seed) {
+        FutureTask<Question> task = new FutureTask<>(
+                () -> QuestionEngine.generate(words, answerMatcher, new SplittableRandom(seed)));
+        if (!closed) {
+            Refiller.EXECUTOR.execute(task);
+        }
+        return task;
+    }
+
+    /**
+     * Closes the pool. Its ready questions are dropped and it is no longer
+     * refilled; questions asked for after this are made on the spot.
+     */
+    void close() {
+        closed = true;
+        for (Shelf shelf : shelves.values()) {
+            shelf.questions.clear();
+            shelf.size.set(0);
+        }
+    }
+
+    /**
+     * Tops up the questions of a type in the background, unless that is
+     * already being done or the pool is closed.
+     */
+    private void refill(QuestionType type) {
+        Shelf shelf = shelves.get(type);
+        if (closed || !shelf.refilling.compareAndSet(false, true)) {
+            return;
+        }
+        Refiller.EXECUTOR.execute(() -> {
+            try {
+                while (!closed && shelf.size.get() < poolSize) {
+                    shelf.questions.add(create(type));
+                    shelf.size.incrementAndGet();
+                }
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            } finally {
+                shelf.refilling.set(false);
+            }
+        });
+    }
+
+    private Question create(QuestionType type) {
+        return QuestionEngine.generate(type, words, answerMatcher, QuestionEngine.getDefault().forCurrentThread());
+    }
+}
@@ -0,0 +1,127 @@
+package library;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Singleton reverse dictionary from a word's translation, in the user's
+ * native language, to the words with that translation in every language of
+ * the catalog. Translations are folded the same way as search tokens, so
+ * case, accents, punctuation and spacing don't matter. Each translation maps
+ * to the catalog positions of its words, grouped by language, so asking how
+ * to say something in a language is two map lookups instead of a scan of
+ * the catalog. The index is built once when the catalog is loaded.
+ * <p>
+ * A walk fills a new map that only the walking thread sees, and it replaces
+ * the published map when the walk ends, so lookups never see a half-built
+ * index and read the published map without locking.
+ */
+public class TranslationIndex implements CatalogVisitor {
+
+    private volatile HashMap<String, EnumMap<LanguagesEnum, List<CatalogIndex.Position>>> translations;
+    private HashMap<String, EnumMap<LanguagesEnum, List<CatalogIndex.Position>>> building;
+
+    /**
+     * Holds the index, made the first time it is asked for
+     */
+    private static class Holder {
+
+        private static final TranslationIndex INSTANCE = new TranslationIndex();
+    }
+
+    private TranslationIndex() {
+        translations = new HashMap<>();
+    }
+
+    /**
+     * Returns the singleton instance of TranslationIndex.
+     *
+     * @return The singleton instance of TranslationIndex.
+     */
+    public static TranslationIndex getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Finds the words with a translation in one language.
+     *
+     * @param translation the translation
+     * @param language the language to look in
+     * @return the catalog positions of the words, in catalog order, empty if
+     * there are none
+     */
+    public List<CatalogIndex.Position> lookup(String translation, LanguagesEnum language) {
+        EnumMap<LanguagesEnum, List<CatalogIndex.Position>> byLanguage = translations.get(normalize(translation));
+        if (byLanguage == null) {
+            return Collections.emptyList();
+        }
+        return byLanguage.getOrDefault(language, Collections.emptyList());
+    }
+
+    /**
+     * Finds the words with a translation in every language.
+     *
+     * @param translation the translation
+     * @return the catalog positions of the words by language, empty if there
+     * are none
+     */
+    public Map<LanguagesEnum, List<CatalogIndex.Position>> lookup(String translation) {
+        EnumMap<LanguagesEnum, List<CatalogIndex.Position>> byLanguage = translations.get(normalize(translation));
+        if (byLanguage == null) {
+            return Collections.emptyMap();
+        }
+        return Collections.unmodifiableMap(byLanguage);
+    }
+
+    /**
+     * Returns the number of distinct translations in the index.
+     *
+     * @return the translation count
+     */
+    public int size() {
+        return translations.size();
+    }
+
+    /**
+     * Starts a new map for a walk of the catalog. Lookups keep reading the
+     * published map until the walk ends.
+     */
+    @Override
+    public void startCatalog() {
+        building = new HashMap<>();
+    }
+
+    @Override
+    public void visitWord(LanguagesEnum language, int unit, int lesson, int position, Word word) {
+        String key = normalize(word.getTranslatedWord());
+        if (key.isEmpty()) {
+            return;
+        }
+        building.computeIfAbsent(key, translation -> new EnumMap<>(LanguagesEnum.class))
+                .computeIfAbsent(language, list -> new ArrayList<>())
+                .add(new CatalogIndex.Position(language, unit, lesson, position));
+    }
+
+    /**
+     * Makes the lists filled by the walk unmodifiable and publishes the map.
+     */
+    @Override
+    public void endCatalog() {
+        for (EnumMap<LanguagesEnum, List<CatalogIndex.Position>> byLanguage : building.values()) {
+            byLanguage.replaceAll((language, positions) -> Collections.unmodifiableList(positions));
+        }
+        translations = building;
+        building = null;
+    }
+
+    /**
+     * Folds a translation to its search tokens separated by single spaces.
+     */
+    private static String normalize(String translation) {
+        return String.join(" ", WordSearchIndex.tokenize(translation));
+    }
+}
@@ -0,0 +1,262 @@
+package library;
+
+import java.util.ArrayList;
+import java.util.UUID;
+
+/**
+ * Hash map keyed by UUID. Keys are stored as the two long halves of the UUID
+ * in parallel arrays with open addressing, so a lookup needs no UUID or
+ * entry objects and no boxing, and only compares longs. A key of all zero
+ * bits marks an empty slot, so the nil UUID can't be used as a key.
+ *
+ * @param <V> the type of the values
+ */
+public class UUIDMap<V> {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private long[] mostSignificant;
+    private long[] leastSignificant;
+    private Object[] values;
+    private int size;
+
+    /**
+     * Creates an empty map.
+     */
+    public UUIDMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates an empty map sized to hold the given number of keys without
+     * growing.
+     *
+     * @param expectedSize the number of keys expected
+     */
+    public UUIDMap(int expectedSize) {
+        int capacity = DEFAULT_CAPACITY;
+        while (capacity * 3 / 4 < expectedSize) {
+            capacity <<= 1;
+        }
+        allocate(capacity);
+    }
+
+    /**
+     * Returns the value mapped to a key.
+     *
+     * @param key the key
+     * @return the value, or null if the key isn't in the map
+     */
+    public V get(UUID key) {
+        if (key == null) {
+            return null;
+        }
+        return get(key.getMostSignificantBits(), key.getLeastSignificantBits());
+    }
+
+    /**
+     * Returns the value mapped to the key with the given halves.
+     *
+     * @param msb the most significant bits of the key
+     * @param lsb the least significant bits of the key
+     * @return the value, or null if the key isn't in the map
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long msb, long lsb) {
+        int slot = find(msb, lsb);
+        return slot < 0 ? null : (V) values[slot];
+    }
+
+    /**
+     * Checks if a key is in the map.
+     *
+     * @param key the key
+     * @return true if the key is in the map
+     */
+    public boolean containsKey(UUID key) {
+        return key != null && find(key.getMostSignificantBits(), key.getLeastSignificantBits()) >= 0;
+    }
+
+    /**
+     * Maps a key to a value, replacing any value already mapped to it.
+     *
+     * @param key the key
+     * @param value the value
+     * @return the value previously mapped to the key, or null
+     */
+    @SuppressWarnings("unchecked")
+    public V put(UUID key, V value) {
+        long msb = key.getMostSignificantBits();
+        long lsb = key.getLeastSignificantBits();
+        if (msb == 0 && lsb == 0) {
+            throw new IllegalArgumentException("The nil UUID can't be used as a key");
+        }
+        int mask = values.length - 1;
+        int slot = hash(msb, lsb) & mask;
+        while (!isEmpty(slot)) {
+            if (mostSignificant[slot] == msb && leastSignificant[slot] == lsb) {
+                V previous = (V) values[slot];
+                values[slot] = value;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        mostSignificant[slot] = msb;
+        leastSignificant[slot] = lsb;
+        values[slot] = value;
+        if (++size > values.length * 3 / 4) {
+            resize(values.length << 1);
+        }
+        return null;
+    }
+
+    /**
+     * Maps a key to a value unless the key is already in the map.
+     *
+     * @param key the key
+     * @param value the value
+     * @return the value already mapped to the key, or null if the value was
+     * added
+     */
+    public V putIfAbsent(UUID key, V value) {
+        V current = get(key);
+        if (current == null) {
+            put(key, value);
+        }
+        return current;
+    }
+
+    /**
+     * Removes a key from the map.
+     *
+     * @param key the key
+     * @return the value that was mapped to the key, or null
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(UUID key) {
+        if (key == null) {
+            return null;
+        }
+        int slot = find(key.getMostSignificantBits(), key.getLeastSignificantBits());
+        if (slot < 0) {
+            return null;
+        }
+        V previous = (V) values[slot];
+        size--;
+
+        // Shift later keys of the same probe run back so lookups still find them
+        int mask = values.length - 1;
+        int next = (slot + 1) & mask;
+        while (!isEmpty(next)) {
+            int home = hash(mostSignificant[next], leastSignificant[next]) & mask;
+            if (((next - home) & mask) >= ((next - slot) & mask)) {
+                mostSignificant[slot] = mostSignificant[next];
+                leastSignificant[slot] = leastSignificant[next];
+                values[slot] = values[next];
+                slot = next;
+            }
+            next = (next + 1) & mask;
+        }
+        mostSignificant[slot] = 0;
+        leastSignificant[slot] = 0;
+        values[slot] = null;
+        return previous;
+    }
+
+    /**
+     * Returns the number of keys in the map.
+     *
+     * @return the size of the map
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks if the map is empty.
+     *
+     * @return true if the map has no keys
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes every key from the map.
+     */
+    public void clear() {
+        allocate(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Returns the values in the map, in no particular order.
+     *
+     * @return the values
+     */
+    @SuppressWarnings("unchecked")
+    public ArrayList<V> values() {
+        ArrayList<V> result = new ArrayList<>(size);
+        for (int slot = 0; slot < values.length; slot++) {
+            if (!isEmpty(slot)) {
+                result.add((V) values[slot]);
+            }
+        }
+        return result;
+    }
+
+    private int find(long msb, long lsb) {
+        int mask = values.length - 1;
+        int slot = hash(msb, lsb) & mask;
+        while (!isEmpty(slot)) {
+            if (mostSignificant[slot] == msb && leastSignificant[slot] == lsb) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private boolean isEmpty(int slot) {
+        return mostSignificant[slot] == 0 && leastSignificant[slot] == 0;
+    }
+
+    private void resize(int capacity) {
+        long[] oldMostSignificant = mostSignificant;
+        long[] oldLeastSignificant = leastSignificant;
+        Object[] oldValues = values;
+        allocate(capacity);
+
+        int mask = capacity - 1;
+        for (int i = 0; i < oldValues.length; i++) {
+            long msb = oldMostSignificant[i];
+            long lsb = oldLeastSignificant[i];
+            if (msb == 0 && lsb == 0) {
+                continue;
+            }
+            int slot = hash(msb, lsb) & mask;
+            while (!isEmpty(slot)) {
+                slot = (slot + 1) & mask;
+            }
+            mostSignificant[slot] = msb;
+            leastSignificant[slot] = lsb;
+            values[slot] = oldValues[i];
+            size++;
+        }
+    }
+
+    private void allocate(int capacity) {
+        mostSignificant = new long[capacity];
+        leastSignificant = new long[capacity];
+        values = new Object[capacity];
+        size = 0;
+    }
+
+    /**
+     * Mixes both halves of the key. Random UUIDs are already well spread,
+     * but name based or hand written ones may not be.
+     */
+    private static int hash(long msb, long lsb) {
+        long h = (msb ^ Long.rotateLeft(lsb, 32)) * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -1,18 +1,20 @@
 package library;
 
-import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 
 /**
  * @author Madeleine McBride Represents a unit containing multiple lessons.
+ * A unit can't be changed once it is made, so it can be shared by every
+ * learner.
  */
 public class Unit {
 
-    private String unitName;
-    private int unitNumber;
-    private LessonList lessonList;
-    private UUID id;
-    private UnitList unitList;
+    private final String unitName;
+    private final int unitNumber;
+    private final LessonList lessonList;
+    private final UUID id;
+    private final UnitList unitList;
 
     /**
      * Constructs a Unit with the specified name and number.
@@ -79,16 +81,6 @@ public class Unit {
         return unitList.nextUnit(this);
     }
 
-    /**
-     * Restarts the current unit by resetting it to the first lesson.
-     *
-     * @return the current unit restarted
-     */
-    public Unit restartUnit() {
-        lessonList.restartLessons();
-        return this;
-    }
-
     /**
      * Moves to the next lesson in the unit.
      *
@@ -99,30 +91,12 @@ public class Unit {
         return lessonList.nextLesson(currentLesson);
     }
 
-    /**
-     * Adds a lesson to the unit.
-     *
-     * @param lesson the lesson to be added
-     */
-    public void addLesson(Lesson lesson) {
-        lessonList.addLesson(lesson);
-    }
-
-    /**
-     * Removes a lesson from the unit.
-     *
-     * @param lesson the lesson to be removed
-     */
-    public void removeLesson(Lesson lesson) {
-        lessonList.removeLesson(lesson);
-    }
-
     /**
      * Returns the list of lessons in the unit.
      *
-     * @return the list of lessons
+     * @return the list of lessons, which can't be changed
      */
-    public ArrayList<Lesson> getLessons() {
+    public List<Lesson> getLessons() {
         return lessonList.getLessons();
     }
 }
@@ -1,22 +1,59 @@
 package library;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.UUID;
+import java.util.function.Function;
 
 /**
  * @author Madeleine McBride
- * Represents a list of units.
+ * Represents a list of units. A unit list can't be changed once it is made,
+ * so one list can be shared by every learner without locking; where a
+ * learner is in the course is kept by their CourseCursor. A unit list can
+ * also be lazy, in which case its units are only loaded the first time they
+ * are used.
  */
 public class UnitList {
 
-    private ArrayList<Unit> units;
-    private int currentUnitIndex;
+    private volatile List<Unit> units;
+    private Function<UnitList, ArrayList<Unit>> loader;
 
     /**
-     * Constructs a unit list given an arraylist of units.
+     * Constructs a unit list given a list of units.
      */
-    public UnitList(ArrayList<Unit> units) {
-        this.units = units;
-        this.currentUnitIndex = 0;
+    public UnitList(List<Unit> units) {
+        this.units = Collections.unmodifiableList(new ArrayList<>(units));
+        this.loader = null;
+    }
+
+    /**
+     * Constructs a lazy unit list whose units are loaded the first time they
+     * are used.
+     *
+     * @param loader loads the units, given the unit list they belong to
+     */
+    public UnitList(Function<UnitList, ArrayList<Unit>> loader) {
+        this.loader = loader;
+    }
+
+    /**
+     * Returns the units, loading them first if this is a lazy unit list that
+     * hasn't been loaded yet.
+     */
+    private List<Unit> units() {
+        List<Unit> current = units;
+        if (current == null) {
+            synchronized (this) {
+                current = units;
+                if (current == null) {
+                    current = Collections.unmodifiableList(loader.apply(this));
+                    units = current;
+                    // Units are never unloaded, let go of what they were read from
+                    loader = null;
+                }
+            }
+        }
+        return current;
     }
 
     /**
@@ -26,7 +63,7 @@ public class UnitList {
      * @return the unit corresponding to the unit number
      */
     public Unit getUnit(int unitNumber) {
-        for (Unit unit : units) {
+        for (Unit unit : units()) {
             if (unit.getUnitNumber() == unitNumber) {
                 return unit;
             }
@@ -34,15 +71,6 @@ public class UnitList {
         return null;
     }
 
-    /**
-     * Returns the current unit
-     *
-     * @return the unit corresponding to the current unit
-    **/
-    public Unit getCurrentUnit() {
-        return units.get(currentUnitIndex);
-    }
-
     /**
      * Returns the next unit based on the current unit number.
      *
@@ -50,37 +78,25 @@ public class UnitList {
      * @return the next unit or null if there are no more units
      */
     public Unit nextUnit(Unit currentUnit) {
-        int index = units.indexOf(currentUnit);
+        if (currentUnit == null) {
+            return null;
+        }
+        List<Unit> units = units();
+        int index = indexOf(currentUnit.getId());
         if (index != -1 && index < units.size() - 1) {
             return units.get(index + 1);
         }
         return null;
     }
 
-    /**
-     * Returns the next unit based on the current unit number.
-     *
-     * @return the true if it went to next unit, false if there are no more units left
-     */
-    public boolean goToNextUnit() {
-        
-        if (currentUnitIndex < units.size() - 1) {
-            currentUnitIndex++;
-            return true;
-        }
-        return false;
-    }
-
     /**
      * Get the unit by id number
      * @param UnitId The id number of unit
      * @return the unit that matches the given id number
      */
     public Unit getUnitById(UUID UnitId) {
-        for (Unit unit : units)
-            if (unit.getId().equals(UnitId))
-                return unit;
-        return null;
+        int index = indexOf(UnitId);
+        return index == -1 ? null : units().get(index);
     }
 
     /**
@@ -89,48 +105,40 @@ public class UnitList {
      * @return the unit number that matches the given id number
      */
     public int getUnitNumberById(UUID UnitId) {
-        for (int i = 0; i<units.size(); i++) {
-            if(units.get(i).getId().equals(UnitId))
-                return i;
-        }
-        return -1;
+        return indexOf(UnitId);
     }
 
     /**
-     * Restarts the current unit by resetting it to the first lesson.
+     * Returns the position of a unit in the list. The position is looked up
+     * in the CatalogIndex, and the list is only scanned for lists the index
+     * doesn't cover, such as ones built straight from the language file.
      *
-     * @param currentUnit the current unit
-     * @return the current unit restarted
+     * @param unitId the id of the unit
+     * @return the position of the unit, or -1 if it isn't in the list
      */
-    public Unit restartUnit(Unit currentUnit) {
-        currentUnit.restartUnit();
-        return currentUnit;
+    private int indexOf(UUID unitId) {
+        if (unitId == null) {
+            return -1;
+        }
+        List<Unit> units = units();
+        CatalogIndex.Position position = CatalogIndex.getInstance().getUnitPosition(unitId);
+        if (position != null && position.getUnit() < units.size()
+                && unitId.equals(units.get(position.getUnit()).getId())) {
+            return position.getUnit();
+        }
+        for (int i = 0; i < units.size(); i++) {
+            if (unitId.equals(units.get(i).getId()))
+                return i;
+        }
+        return -1;
     }
 
     /**
      * Returns the list of units.
      *
-     * @return the list of units
-     */
-    public ArrayList<Unit> getUnits() {
-        return units;
-    }
-
-    /**
-     * Adds a unit to the unit list.
-     *
-     * @param unit the unit to be added
-     */
-    public void addUnit(Unit unit) {
-        units.add(unit);
-    }
-
-    /**
-     * Removes a unit from the unit list.
-     *
-     * @param unit the unit to be removed
+     * @return the list of units, which can't be changed
      */
-    public void removeUnit(Unit unit) {
-        units.remove(unit);
+    public List<Unit> getUnits() {
+        return units();
     }
 }
@@ -1,10 +1,13 @@
  package library;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.UUID;
 
 /**
- * Represents a User object holding all user data
+ * Represents a User object holding all user data. Changes to a user are
+ * made while holding the user's lock, so a save that locks the user reads
+ * a consistent snapshot of it.
  *
  * @author Sofia Bacha
  */
@@ -19,10 +22,12 @@ public class User {
     private String username;
     private String password;
     private ArrayList<Language> languages;
-    private ArrayList<Badge> badges;
+    private BitSet badgeMask;
     private UUID currentUnitId;
     private UUID currentLessonId;
-    private WordList problemWordList;
+    private ArrayList<Word> problemWords;
+    private volatile boolean dirty;
+    private long savedAt;
 
     /**
      * Creates a new User object for first time user.
@@ -46,8 +51,9 @@ public class User {
         this.language = language;
         this.currentUnitId = unitId;
         this.currentLessonId = lessonId;
-        badges = new ArrayList<>();
-        this.problemWordList = new WordList(new ArrayList<>());
+        this.badgeMask = new BitSet();
+        this.problemWords = new ArrayList<>();
+        this.dirty = true;
     }
 
     /**
@@ -74,10 +80,13 @@ public class User {
         this.username = username;
         this.password = password;
         this.languages = languages;
-        this.badges = new ArrayList<>();
+        this.badgeMask = new BitSet();
+        for (Badge badge : badges) {
+            setBadge(badge);
+        }
         this.currentUnitId = currentUnitID;
         this.currentLessonId = currentLessonID;
-        this.problemWordList = problemWords;
+        this.problemWords = new ArrayList<>(problemWords.getWords());
 
         this.language = languages.get(0);
     }
@@ -159,8 +168,9 @@ public class User {
      *
      * @param language The language user wants to learn
      */
-    void setLanguage(Language language) {
+    synchronized void setLanguage(Language language) {
         this.language = language;
+        markDirty();
     }
 
     /**
@@ -195,27 +205,50 @@ public class User {
      *
      * @return ArrayList of all user badges.
      */
-    public ArrayList<Badge> getBadges() {
-        return badges;
+    public synchronized ArrayList<Badge> getBadges() {
+        return BadgeList.getInstance().getBadges(badgeMask);
+    }
+
+    /**
+     * Returns the user's badge mask, with the bit of every badge the user has
+     * earned set. Bits are the badges' ordinals in the BadgeList.
+     *
+     * @return A copy of the badge mask.
+     */
+    public synchronized BitSet getBadgeMask() {
+        return (BitSet) badgeMask.clone();
+    }
+
+    /**
+     * Tests if the user has earned a badge.
+     *
+     * @param badge Badge to test
+     * @return true if the user has earned the badge.
+     */
+    public synchronized boolean hasBadge(Badge badge) {
+        int ordinal = BadgeList.getInstance().getOrdinal(badge.getID());
+        return ordinal >= 0 && badgeMask.get(ordinal);
     }
 
     /**
      * Adds a problem word to the list of user's problem words
      * @param word to add the list of problem words
      */
-    public void addProblemWord(Word word) {
-        if (!problemWordList.getWords().contains(word)) {
-            problemWordList.addWord(word);
+    public synchronized void addProblemWord(Word word) {
+        if (!WordList.contains(problemWords, word)) {
+            problemWords.add(word);
+            markDirty();
         }
     }
 
     /**
      * Returns the list of words user has struggled with.
      * 
-     * @return A WordList containing words the user struggles with.
+     * @return A WordList containing words the user struggles with, a
+     * snapshot that doesn't change when words are added later.
      */
-    public WordList getProblemWordList() {
-        return problemWordList;
+    public synchronized WordList getProblemWordList() {
+        return new WordList(problemWords);
     }
 
     /**
@@ -293,8 +326,10 @@ public class User {
      *
      * @param badge Badge object to add
      */
-    public void addBadge(Badge badge) {
-        this.badges.add(badge);
+    public synchronized void addBadge(Badge badge) {
+        if (setBadge(badge)) {
+            markDirty();
+        }
     }
 
     /**
@@ -302,52 +337,123 @@ public class User {
      *
      * @param badge Badge object to remove
      */
-    public void removeBadge(Badge badge) {
-        this.badges.remove(badge);
+    public synchronized void removeBadge(Badge badge) {
+        int ordinal = BadgeList.getInstance().getOrdinal(badge.getID());
+        if (ordinal >= 0 && badgeMask.get(ordinal)) {
+            badgeMask.clear(ordinal);
+            markDirty();
+        }
     }
 
     /**
      * Displays all badges user has earned by calling method in badge class.
      */
     public void displayBadges() {
-        for (Badge badge : badges) {
+        for (Badge badge : getBadges()) {
             badge.displayBadge();
         }
     }
 
     /**
-     * Moves the user to the next lesson. Changes the currentLessonId to the
-     * next lesson's ID.
+     * Sets a badge's bit in the badge mask. Badges that aren't in the
+     * BadgeList are ignored, as they have no ordinal to store.
+     *
+     * @return true if the user didn't have the badge before
+     */
+    private boolean setBadge(Badge badge) {
+        if (badge == null)
+            return false;
+        int ordinal = BadgeList.getInstance().getOrdinal(badge.getID());
+        if (ordinal < 0 || badgeMask.get(ordinal))
+            return false;
+        badgeMask.set(ordinal);
+        return true;
+    }
+
+    /**
+     * Moves the user to the next lesson in the current unit. Changes the
+     * currentLessonId to the next lesson's ID.
+     *
+     * @return true if moved, false if the current lesson is the unit's last
      */
     public boolean moveToNextLesson() {
-        Lesson nextLesson = getCurrentUnit().getLessonList().nextLesson(getCurrentLesson());
-        if (nextLesson == null)
+        CourseCursor cursor = getCourseCursor();
+        if (!cursor.moveToNextLesson())
             return false;
-        currentLessonId = nextLesson.getId();
+        moveTo(cursor);
         return true;
     }
 
     /**
-     * Moves the user to the next unit. Changes the currentUnitId to the next
-     * unit's ID.
+     * Moves the user to the first lesson of the next unit. Changes the
+     * currentUnitId and currentLessonId to the next unit's and its first
+     * lesson's IDs.
+     *
+     * @return true if moved, false if the current unit is the last
      */
     public boolean moveToNextUnit() {
-        Unit nextUnit = language.getUnitList().nextUnit(getCurrentUnit()); 
-        if (nextUnit == null)
+        CourseCursor cursor = getCourseCursor();
+        if (!cursor.moveToNextUnit())
             return false;
-        currentUnitId = nextUnit.getId();
+        moveTo(cursor);
         return true;
     }
 
+    /**
+     * Returns how much of the current language's course the user has
+     * finished.
+     *
+     * @return the percent of lessons finished, from 0 to 100
+     */
+    public int getPercentComplete() {
+        return getCourseCursor().getPercentComplete();
+    }
+
+    /**
+     * Returns a cursor at the user's current lesson, or at the first lesson
+     * of the current unit if the lesson isn't in the course. Moving the
+     * cursor doesn't move the user until it is passed to moveTo.
+     *
+     * @return a cursor at the user's place in the course
+     */
+    public CourseCursor getCourseCursor() {
+        return new CourseCursor(language, currentUnitId, currentLessonId);
+    }
+
+    /**
+     * Moves the user to the lesson a cursor is at.
+     *
+     * @param cursor a cursor in the user's current language
+     */
+    public synchronized void moveTo(CourseCursor cursor) {
+        if (!cursor.isInCourse())
+            return;
+        currentLessonId = cursor.getLessonId();
+        currentUnitId = cursor.getUnitId();
+        markDirty();
+    }
+
     /**
      * Runs the user's current lesson. If the user passes the lesson, move to
      * the next lesson.
      */
     public void runLesson() {
+        runLesson(null);
+    }
+
+    /**
+     * Runs the user's current lesson with questions made from the user's
+     * QuestionEngine session. If the user passes the lesson, move to the
+     * next lesson.
+     *
+     * @param session the user's session, or null to take questions from the
+     * lesson's question pool
+     */
+    public void runLesson(QuestionEngine.Session session) {
         Lesson lesson = getCurrentLesson();
 
         //User passes lesson, move to next lesson
-        if (lesson != null && lesson.run(this)) {
+        if (lesson != null && lesson.run(this, session)) {
             System.out.println("hi");
             // If there are no more lessons, move to next unit
             if(!moveToNextLesson()) {
@@ -365,8 +471,9 @@ public class User {
      *
      * @param lessonId UUID of Lesson user is on
      */
-    public void setCurrentLessonId(UUID lessonId) {
+    public synchronized void setCurrentLessonId(UUID lessonId) {
         this.currentLessonId = lessonId;
+        markDirty();
     }
 
     /**
@@ -374,21 +481,73 @@ public class User {
      *
      * @param lessonId UUID of Unit user is on
      */
-    public void setCurrentUnitId(UUID unitId) {
+    public synchronized void setCurrentUnitId(UUID unitId) {
         this.currentUnitId = unitId;
+        markDirty();
     }
 
     /**
      * Used to update/change information for user. User needs to enter correct
      * password to update any information.
+     *
+     * @return true if updated, false if the password is wrong or the email or
+     * phone number belongs to another user while unique contact details are
+     * enforced
      */
-    public void updateUser(String firstName, String lastName, String email, String phoneNumber, String password, String currentPassword) {
-        if (checkPassword(currentPassword)) {
-            this.firstName = firstName;
-            this.lastName = lastName;
-            this.email = email;
-            this.phoneNumber = phoneNumber;
-            this.password = password;
-        }
+    public boolean updateUser(String firstName, String lastName, String email, String phoneNumber, String password, String currentPassword) {
+        if (!checkPassword(currentPassword))
+            return false;
+        return UserList.getInstance().changeDetails(this, email, phoneNumber, () -> {
+            synchronized (this) {
+                this.firstName = firstName;
+                this.lastName = lastName;
+                this.email = email;
+                this.phoneNumber = phoneNumber;
+                this.password = password;
+                markDirty();
+            }
+        });
+    }
+
+    /**
+     * Returns whether the user has changed since it was last saved.
+     *
+     * @return true if the user needs to be saved again, false otherwise
+     */
+    public boolean isDirty() {
+        return dirty;
+    }
+
+    /**
+     * Returns when the snapshot this user was loaded from was taken.
+     *
+     * @return the time, in milliseconds since the epoch, or 0 if the user
+     * wasn't loaded from a snapshot that records it
+     */
+    long getSavedAt() {
+        return savedAt;
+    }
+
+    /**
+     * Sets when the snapshot this user was loaded from was taken.
+     *
+     * @param savedAt the time, in milliseconds since the epoch
+     */
+    void setSavedAt(long savedAt) {
+        this.savedAt = savedAt;
+    }
+
+    /**
+     * Marks the user as changed so the next save writes it again.
+     */
+    void markDirty() {
+        this.dirty = true;
+    }
+
+    /**
+     * Marks the user as saved.
+     */
+    void clearDirty() {
+        this.dirty = false;
     }
 }
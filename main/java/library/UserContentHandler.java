@@ -0,0 +1,218 @@
+package library;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.UUID;
+
+import org.json.simple.parser.ContentHandler;
+
+/**
+ * Streaming handler for the users file. The JSONParser pushes tokens into
+ * this handler one at a time and each User is built as soon as its record
+ * closes, so only a single record is ever held in memory while loading.
+ */
+class UserContentHandler extends DataConstants implements ContentHandler {
+
+    // Nesting depths of the users file: [ { "key": [ { "key": value } ] } ]
+    private static final int USER_DEPTH = 2;
+    private static final int NESTED_DEPTH = 4;
+
+    private ArrayList<User> users;
+    private int userDepth;
+    private int nestedDepth;
+    private int depth;
+    private String userKey;
+    private String nestedKey;
+    private HashMap<String, String> userFields;
+    private HashMap<String, String> nestedFields;
+    private ArrayList<Language> languages;
+    private ArrayList<Badge> badges;
+    private ArrayList<Word> problemWords;
+    private ArrayList<Word> inlineProblemWords;
+
+    /**
+     * Creates a handler that adds every completed user to the given list.
+     *
+     * @param users list the loaded users are added to
+     */
+    public UserContentHandler(ArrayList<User> users) {
+        this(users, false);
+    }
+
+    /**
+     * Creates a handler that adds every completed user to the given list.
+     *
+     * @param users list the loaded users are added to
+     * @param singleRecord true if the file holds one user object instead of
+     * an array of users
+     */
+    public UserContentHandler(ArrayList<User> users, boolean singleRecord) {
+        this.users = users;
+        this.userDepth = singleRecord ? USER_DEPTH - 1 : USER_DEPTH;
+        this.nestedDepth = singleRecord ? NESTED_DEPTH - 1 : NESTED_DEPTH;
+        this.userFields = new HashMap<>();
+        this.nestedFields = new HashMap<>();
+    }
+
+    /**
+     * Returns the users built so far.
+     *
+     * @return the list of users
+     */
+    public ArrayList<User> getUsers() {
+        return users;
+    }
+
+    @Override
+    public void startJSON() {
+        depth = 0;
+    }
+
+    @Override
+    public void endJSON() {
+    }
+
+    @Override
+    public boolean startObject() {
+        depth++;
+        if (depth == userDepth) {
+            userFields.clear();
+            languages = new ArrayList<>();
+            badges = new ArrayList<>();
+            problemWords = new ArrayList<>();
+            inlineProblemWords = new ArrayList<>();
+        } else if (depth == nestedDepth) {
+            nestedFields.clear();
+        }
+        return true;
+    }
+
+    @Override
+    public boolean endObject() {
+        if (depth == userDepth) {
+            users.add(buildUser());
+        } else if (depth == nestedDepth) {
+            addNestedRecord();
+        }
+        depth--;
+        return true;
+    }
+
+    @Override
+    public boolean startObjectEntry(String key) {
+        if (depth == userDepth) {
+            userKey = key;
+        } else if (depth == nestedDepth) {
+            nestedKey = key;
+        }
+        return true;
+    }
+
+    @Override
+    public boolean endObjectEntry() {
+        return true;
+    }
+
+    @Override
+    public boolean startArray() {
+        depth++;
+        return true;
+    }
+
+    @Override
+    public boolean endArray() {
+        depth--;
+        return true;
+    }
+
+    @Override
+    public boolean primitive(Object value) {
+        String text = value == null ? null : value.toString();
+        if (depth == userDepth) {
+            userFields.put(userKey, text);
+        } else if (depth == nestedDepth) {
+            nestedFields.put(nestedKey, text);
+        }
+        return true;
+    }
+
+    /**
+     * Adds the nested object that just closed to the list named by the
+     * enclosing user entry (languages, badges or problem words).
+     */
+    private void addNestedRecord() {
+        if (USERS_LANGUAGES.equals(userKey)) {
+            // Add language to list by accessing language from languagelist via enum
+            languages.add(LanguageList.getInstance().getLanguageByEnum(LanguagesEnum.valueOf(nestedFields.get(LANGUAGE_ENUM))));
+        } else if (USERS_BADGES.equals(userKey)) {
+            // Older user files list each badge, newer ones store a badge mask
+            Badge badge = Badge.getBadgeByUUID(UUID.fromString(nestedFields.get(USERS_BADGE_ID)));
+            if (badge != null) {
+                badges.add(badge);
+            }
+        } else if (USERS_PROBLEM_WORDS.equals(userKey)) {
+            // Resolved against the catalog once the user's languages are known
+            UUID wordID = UUID.fromString(nestedFields.get(USERS_WORD_ID));
+            String text = nestedFields.get(USERS_WORD_TEXT);
+            String translation = nestedFields.get(USERS_WORD_TRANSLATION);
+            String partOfSpeech = nestedFields.get(USERS_WORD_PART_OF_SPEECH);
+            String exampleSentence = nestedFields.get(USERS_WORD_EXAMPLE_SENTENCE);
+            inlineProblemWords.add(new Word(wordID, text, translation, partOfSpeech, exampleSentence));
+        }
+    }
+
+    /**
+     * Replaces each problem word reference with the matching word from the
+     * catalog, so every user shares the catalog's Word objects. A word that
+     * is no longer in the catalog is kept from the copy saved with it; one
+     * with no saved copy can't be rebuilt and is dropped.
+     */
+    private void resolveProblemWords() {
+        for (Word reference : inlineProblemWords) {
+            Word word = null;
+            for (Language language : languages) {
+                if (language != null && (word = language.getWordById(reference.getId())) != null) {
+                    break;
+                }
+            }
+            if (word == null) {
+                word = LanguageList.getInstance().getWordById(reference.getId());
+            }
+            if (word == null && reference.getForeignWord() != null) {
+                word = reference;
+            }
+            if (word != null) {
+                problemWords.add(word);
+            } else {
+                System.out.println("Dropping problem word " + reference.getId() + ", it is not in the catalog");
+            }
+        }
+    }
+
+    /**
+     * Builds a User from the fields collected for the record that just closed.
+     *
+     * @return the loaded user
+     */
+    private User buildUser() {
+        String firstName = userFields.get(USERS_FIRST_NAME);
+        String lastName = userFields.get(USERS_LAST_NAME);
+        String email = userFields.get(USERS_EMAIL);
+        String phoneNumber = userFields.get(USERS_PHONE_NUMBER);
+        String username = userFields.get(USERS_USERNAME);
+        String password = userFields.get(USERS_PASSWORD);
+        UUID userID = UUID.fromString(userFields.get(USERS_UUID));
+        UUID currentLessonID = UUID.fromString(userFields.get(USERS_CURRENT_LESSON_ID));
+        UUID currentUnitID = UUID.fromString(userFields.get(USERS_CURRENT_UNIT_ID));
+        resolveProblemWords();
+        if (userFields.get(USERS_BADGE_MASK) != null) {
+            badges.addAll(BadgeList.getInstance().getBadges(BadgeList.decodeMask(userFields.get(USERS_BADGE_MASK))));
+        }
+
+        User user = new User(userID, firstName, lastName, email, phoneNumber, username, password, languages, badges, currentUnitID, currentLessonID, new WordList(problemWords));
+        if (userFields.get(USERS_SAVED_AT) != null) {
+            user.setSavedAt(Long.parseLong(userFields.get(USERS_SAVED_AT)));
+        }
+        return user;
+    }
+}
@@ -1,5 +1,5 @@
 package library;
-import java.util.ArrayList;
+import java.util.List;
 import java.util.Scanner;
 import java.util.UUID;
 
@@ -53,8 +53,9 @@ public class UserDriver {
                 
                 default -> System.out.println("Invalid choice. Please try again.");
             }
-            DataWriter.saveUsers();
+            UserList.getInstance().saveUsers();
         }
+        PersistenceQueue.getInstance().shutdown();
         System.out.println("Exiting the Language Learning System. Goodbye!");
     }
 
@@ -143,8 +144,9 @@ public class UserDriver {
         System.out.print("Enter your password: ");
         String password = scanner.nextLine();
 
-        if (facade.login(username, password) != null) {
-            currentUser = facade.login(username, password);
+        User user = facade.login(username, password);
+        if (user != null) {
+            currentUser = user;
             System.out.println("Login successful! Welcome, " + currentUser.getUsername() + ".");
         } else {
             System.out.println("Login failed. Please check your username and password.");
@@ -173,7 +175,7 @@ public class UserDriver {
             return;
         }
 
-        ArrayList<Language> languages = LanguageList.getInstance().getLanguages();
+        List<Language> languages = LanguageList.getInstance().getLanguages();
         if (languages == null || languages.isEmpty()) {
             System.out.println("No languages available.");
             return;
@@ -205,7 +207,7 @@ public class UserDriver {
      * @return the selected {@code Language}, or {@code null} if no valid choice is made
      */
     private static Language choosePrimaryLanguage() {
-        ArrayList<Language> languages = LanguageList.getInstance().getLanguages();
+        List<Language> languages = LanguageList.getInstance().getLanguages();
         if (languages == null || languages.isEmpty()) {
             System.out.println("No languages available.");
             return null;
@@ -231,11 +233,12 @@ public class UserDriver {
      */
     private static void viewProblemWords() {
         WordList userProblemWordList = facade.getProblemWordList();
-        ArrayList<Word> words = userProblemWordList.getWords();
+        List<Word> words = userProblemWordList.getWords();
 
         System.out.println();
         System.out.println("Current Unit: " + currentUser.getCurrentUnit().getUnitName());
         System.out.println("Current Lesson: " + currentUser.getCurrentLesson().getLessonName());
+        System.out.println("Course Progress: " + currentUser.getPercentComplete() + "%");
         System.out.println();
 
 
@@ -270,7 +273,7 @@ public class UserDriver {
                 break;
             }
             System.out.println("Starting Lesson: " + currentLesson.getLessonName());
-            currentUser.runLesson();
+            currentUser.runLesson(facade.getQuestionSession());
             UserList.getInstance().saveUsers();
             if (currentUser.getCurrentLesson() == null) {
                 System.out.println("Unit completed!");
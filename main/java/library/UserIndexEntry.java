@@ -0,0 +1,95 @@
+package library;
+
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * One account in the user store manifest. Holds just the fields needed to
+ * find an account (id, username, contact details and name) so the full user
+ * record only has to be loaded once the account is actually used.
+ */
+public class UserIndexEntry {
+
+    private UUID id;
+    private String username;
+    private String email;
+    private String phoneNumber;
+    private String firstName;
+    private String lastName;
+
+    /**
+     * Creates a manifest entry from its stored fields.
+     *
+     * @param id the user's UUID
+     * @param username the user's username
+     * @param email the user's email
+     * @param phoneNumber the user's phone number
+     * @param firstName the user's first name
+     * @param lastName the user's last name
+     */
+    public UserIndexEntry(UUID id, String username, String email, String phoneNumber, String firstName, String lastName) {
+        this.id = id;
+        this.username = username;
+        this.email = email;
+        this.phoneNumber = phoneNumber;
+        this.firstName = firstName;
+        this.lastName = lastName;
+    }
+
+    /**
+     * Creates a manifest entry describing a user.
+     *
+     * @param user the user to describe
+     */
+    public UserIndexEntry(User user) {
+        this(user.getId(), user.getUsername(), user.getEmail(), user.getPhoneNumber(), user.getFirstName(), user.getLastName());
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public String getPhoneNumber() {
+        return phoneNumber;
+    }
+
+    public String getFirstName() {
+        return firstName;
+    }
+
+    public String getLastName() {
+        return lastName;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof UserIndexEntry)) {
+            return false;
+        }
+        UserIndexEntry entry = (UserIndexEntry) other;
+        return Objects.equals(id, entry.id) && Objects.equals(username, entry.username)
+                && Objects.equals(email, entry.email) && Objects.equals(phoneNumber, entry.phoneNumber)
+                && Objects.equals(firstName, entry.firstName) && Objects.equals(lastName, entry.lastName);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, username, email, phoneNumber, firstName, lastName);
+    }
+
+    @Override
+    public String toString() {
+        return username + " (" + id + ")";
+    }
+}
@@ -1,25 +1,110 @@
 package library;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * Singleton class that manages the list of users in the system, providing
- * methods for user authentication, retrieval, and modification.
+ * methods for user authentication, retrieval, and modification. Accounts are
+ * kept in a sharded user store with one file per user; only the store's
+ * manifest is read at startup and each account is loaded the first time it
+ * is used. Accounts can also be found by email or phone number through
+ * normalized secondary indexes over the manifest, and searched by partial
+ * username or name through a UserSearchIndex.
+ * <p>
+ * The user list is safe to share between threads. Usernames, loaded users and
+ * contact details are kept in concurrent maps, and the id maps are guarded by
+ * a read-write lock, so lookups run in parallel. Registrations, edits and
+ * account loads lock one stripe of a fixed set of locks per username, email,
+ * phone number or id they touch, so checking that a username or contact
+ * detail is free and claiming it happen as one step, while operations on
+ * unrelated accounts rarely wait on each other.
  *
  * @author Chris Wingo
  */
 public class UserList {
 
-    private static UserList userList;
+    private static final int LOCK_STRIPES = 64;
+
     private ArrayList<User> users;
+    private ConcurrentHashMap<String, User> loadedUsers;
+    private UUIDMap<User> loadedUsersById;
+    private UUIDMap<UserIndexEntry> indexById;
+    private final ReentrantReadWriteLock idLock;
+    private final ReentrantLock[] locks;
+    private ConcurrentHashMap<String, List<UserIndexEntry>> emailIndex;
+    private ConcurrentHashMap<String, List<UserIndexEntry>> phoneNumberIndex;
+    private volatile boolean uniqueContactDetails;
+    private UserSearchIndex searchIndex;
+    private ConcurrentHashMap<String, UserIndexEntry> index;
+    private ConcurrentHashMap<UUID, ProgressJournal.Record> pendingProgress;
+    private volatile boolean indexChanged;
 
     /**
-     * Private constructor to start the user list. Users can be loaded from an
-     * external data source if needed.
+     * Private constructor to start the user list. Reads the manifest of the
+     * user store, or splits the single users file into a new user store the
+     * first time the system is run without one.
      */
     private UserList() {
-        users = DataLoader.getUserList();
+        users = new ArrayList<>();
+        loadedUsers = new ConcurrentHashMap<>();
+        loadedUsersById = new UUIDMap<>();
+        index = new ConcurrentHashMap<>();
+        indexById = new UUIDMap<>();
+        idLock = new ReentrantReadWriteLock();
+        locks = new ReentrantLock[LOCK_STRIPES];
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        emailIndex = new ConcurrentHashMap<>();
+        phoneNumberIndex = new ConcurrentHashMap<>();
+        searchIndex = new UserSearchIndex();
+        pendingProgress = new ConcurrentHashMap<>(ProgressJournal.read());
+
+        if (DataLoader.userStoreExists()) {
+            for (UserIndexEntry entry : DataLoader.getUserIndex()) {
+                putIndexEntry(entry);
+            }
+        } else {
+            migrateUserFile();
+        }
+    }
+
+    /**
+     * Loads every user from the single users file and writes them out as a
+     * sharded user store.
+     */
+    private void migrateUserFile() {
+        // getUserList replays the journal itself
+        ArrayList<User> legacyUsers = DataLoader.getUserList();
+        pendingProgress.clear();
+        if (legacyUsers == null) {
+            return;
+        }
+        for (User user : legacyUsers) {
+            user.markDirty();
+            putLoadedUser(user);
+            putIndexEntry(new UserIndexEntry(user));
+        }
+        indexChanged = true;
+        DataWriter.saveUsers(this);
+    }
+
+    /**
+     * Holds the singleton, which the JVM creates once, the first time
+     * getInstance is called, however many threads call it.
+     */
+    private static class Holder {
+
+        private static final UserList INSTANCE = new UserList();
     }
 
     /**
@@ -28,10 +113,7 @@ public class UserList {
      * @return The singleton instance of UserList.
      */
     public static UserList getInstance() {
-        if (userList == null) {
-            userList = new UserList();
-        }
-        return userList;
+        return Holder.INSTANCE;
     }
 
     /**
@@ -43,12 +125,7 @@ public class UserList {
     public boolean userExists(String username) {
         if (username == null) 
             return false;
-        for (User user : users) {
-            if (user.getUsername().equalsIgnoreCase(username)) {
-                return true;
-            }
-        }
-        return false;
+        return index.containsKey(getKey(username));
     }
 
     /**
@@ -61,12 +138,8 @@ public class UserList {
     public boolean validPass(String username, String password) {
         if (username == null|| password == null)
             return false;
-        for (User user : users) {
-            if (user.getUsername().equalsIgnoreCase(username) && user.getPassword().equals(password)) {
-                return true;
-            }
-        }
-        return false;
+        User user = getUser(username);
+        return user != null && user.getPassword().equals(password);
     }
 
     /**
@@ -81,15 +154,22 @@ public class UserList {
      * @param unitId The user's current unit ID
      * @param lessonId The user's current lesson ID
      * @return True if the user was successfully added, false if the username
-     * already exists.
+     * already exists, or if contact details must be unique and the email or
+     * phone number is already in use.
      */
     public boolean addUser(String firstName, String lastName, String email, String phoneNumber, String username, String password, Language language, UUID unitId, UUID lessonId) {
-        if (!userExists(username)) {
-            users.add(new User(firstName, lastName, email, phoneNumber, username, password, language, unitId, lessonId));
-            saveUsers();
-            return true;
+        if (username == null)
+            return false;
+        ReentrantLock[] held = lock(getKey(username), normalizeEmail(email), normalizePhoneNumber(phoneNumber));
+        try {
+            if (userExists(username) || !canUseContactDetails(null, email, phoneNumber))
+                return false;
+            add(new User(firstName, lastName, email, phoneNumber, username, password, language, unitId, lessonId));
+        } finally {
+            unlock(held);
         }
-        return false;
+        saveUsers();
+        return true;
     }
 
     /**
@@ -97,22 +177,18 @@ public class UserList {
      * 
      * @param user The user to be added
      * @return True if the user was successfully added, false if the username
-     * already exists.
+     * already exists, or if contact details must be unique and the email or
+     * phone number is already in use.
      */
     public boolean addUser(User user) {
         if (user == null)
             return false;
-        if (!userExists(user.getUsername())) {
-            users.add(new User(user.getFirstName(), user.getLastName(), user.getEmail(), user.getPhoneNumber(), user.getUsername(), user.getPassword(), user.getLanguage(), user.getUnitId(), user.getLessonId()));
-            saveUsers();
-            return true;
-        } else {
-            return false;
-        }
+        return addUser(user.getFirstName(), user.getLastName(), user.getEmail(), user.getPhoneNumber(), user.getUsername(), user.getPassword(), user.getLanguage(), user.getUnitId(), user.getLessonId());
     }
 
     /**
-     * Gets a user by their username.
+     * Gets a user by their username, loading the account from the user store
+     * if it hasn't been loaded yet.
      *
      * @param username The username of the user.
      * @return The User object if found, or null if not found.
@@ -120,36 +196,51 @@ public class UserList {
     public User getUser(String username) {
         if (username == null)
             return  null;
-        for (User user : users) {
-            if (user.getUsername().equalsIgnoreCase(username)) {
-                return user;
-            }
-        }
-        return null;
+        String key = getKey(username);
+        User user = loadedUsers.get(key);
+        if (user != null)
+            return user;
+        UserIndexEntry entry = index.get(key);
+        if (entry == null)
+            return null;
+        return loadUser(entry.getId());
     }
 
     /**
-     * Gets a user by their unique ID.
+     * Gets a user by their unique ID, loading the account from the user store
+     * if it hasn't been loaded yet.
      *
      * @param id The UUID of the user.
      * @return The User object if found, or null if not found.
      */
     public User getUserById(UUID id) {
-        for (User user : users) {
-            if (user.getId().equals(id)) {
+        if (id == null)
+            return null;
+        idLock.readLock().lock();
+        try {
+            User user = loadedUsersById.get(id);
+            if (user != null)
                 return user;
-            }
+            if (!indexById.containsKey(id))
+                return null;
+        } finally {
+            idLock.readLock().unlock();
         }
-        return null;
+        return loadUser(id);
     }
 
     /**
-     * Returns the list of all users in the system.
+     * Returns the list of all users in the system. Loads every account that
+     * hasn't been loaded yet, so prefer getUser or getUserById when only one
+     * account is needed.
      *
-     * @return The list of users.
+     * @return A snapshot of the list of users.
      */
     public ArrayList<User> getUsers() {
-        return users;
+        for (UserIndexEntry entry : index.values()) {
+            loadUser(entry.getId());
+        }
+        return getLoadedUsers();
     }
 
     /**
@@ -167,13 +258,92 @@ public class UserList {
             String username, String password, String currentPassword) {
         User user = getUser(username);
         if (user != null && user.checkPassword(password)) {
-            user.updateUser(firstName, lastName, email, phoneNumber, password, currentPassword);
-            return true;
+            return user.updateUser(firstName, lastName, email, phoneNumber, password, currentPassword);
         } else {
             return false;
         }
     }
 
+    /**
+     * Gets the users with the given email. Emails are compared ignoring case
+     * and surrounding spaces.
+     *
+     * @param email The email to look up.
+     * @return The users with that email, empty if there are none.
+     */
+    public ArrayList<User> getUsersByEmail(String email) {
+        return getUsers(emailIndex, normalizeEmail(email));
+    }
+
+    /**
+     * Gets the users with the given phone number. Phone numbers are compared
+     * by their digits only, so "(123) 456-7890" matches "1234567890".
+     *
+     * @param phoneNumber The phone number to look up.
+     * @return The users with that phone number, empty if there are none.
+     */
+    public ArrayList<User> getUsersByPhoneNumber(String phoneNumber) {
+        return getUsers(phoneNumberIndex, normalizePhoneNumber(phoneNumber));
+    }
+
+    /**
+     * Checks if any user has the given email.
+     *
+     * @param email The email to check.
+     * @return true if the email is in use.
+     */
+    public boolean emailInUse(String email) {
+        String key = normalizeEmail(email);
+        return key != null && emailIndex.containsKey(key);
+    }
+
+    /**
+     * Checks if any user has the given phone number.
+     *
+     * @param phoneNumber The phone number to check.
+     * @return true if the phone number is in use.
+     */
+    public boolean phoneNumberInUse(String phoneNumber) {
+        String key = normalizePhoneNumber(phoneNumber);
+        return key != null && phoneNumberIndex.containsKey(key);
+    }
+
+    /**
+     * Searches for users whose username, first name or last name contains
+     * the query, ignoring case. Results are ranked with exact and prefix
+     * matches first. Only the manifest is searched, so no user files are
+     * read.
+     *
+     * @param query The text to search for.
+     * @param page The page of results, starting at 0.
+     * @param pageSize The number of results per page.
+     * @return The manifest entries of the users on the page.
+     */
+    public ArrayList<UserIndexEntry> searchUsers(String query, int page, int pageSize) {
+        return searchIndex.search(query, page, pageSize);
+    }
+
+    /**
+     * Sets whether emails and phone numbers must be unique. When they must,
+     * adding a user or changing a user's details fails if the email or phone
+     * number already belongs to another user. Accounts that already share
+     * contact details are left as they are.
+     *
+     * @param uniqueContactDetails true to enforce unique contact details.
+     */
+    public void setUniqueContactDetails(boolean uniqueContactDetails) {
+        this.uniqueContactDetails = uniqueContactDetails;
+    }
+
+    /**
+     * Returns whether emails and phone numbers must be unique.
+     *
+     * @return true if unique contact details are enforced.
+     */
+    public boolean isUniqueContactDetails() {
+        return uniqueContactDetails;
+    }
+
     /**
      * Attempts to log in a user with the provided username and password.
      *
@@ -199,14 +369,348 @@ public class UserList {
         return false;
     }
 
+    /**
+     * Adds a user to the system without checking the username, and records
+     * it in the user store manifest.
+     *
+     * @param user The user to be added
+     */
     public void add(User user) {
-        users.add(user);
+        putLoadedUser(user);
+        putIndexEntry(new UserIndexEntry(user));
+        indexChanged = true;
+        user.markDirty();
     }
 
     /**
-     * Saves the list of users to an external data source.
+     * Saves the list of users to an external data source. The save is handed
+     * to the write-behind PersistenceQueue, so it returns without waiting
+     * for the file to be written.
      */
     public void saveUsers() {
-        DataWriter.saveUsers();
+        PersistenceQueue.getInstance().requestSave();
+    }
+
+    /**
+     * Returns the users that have been loaded from the user store so far.
+     *
+     * @return A snapshot of the loaded users.
+     */
+    ArrayList<User> getLoadedUsers() {
+        idLock.readLock().lock();
+        try {
+            return new ArrayList<>(users);
+        } finally {
+            idLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the manifest entries of every account in the user store.
+     *
+     * @return A snapshot of the manifest entries.
+     */
+    Collection<UserIndexEntry> getIndexEntries() {
+        return new ArrayList<>(index.values());
+    }
+
+    /**
+     * Updates the manifest entry of a user after its details changed.
+     *
+     * @param user The user whose entry is updated.
+     */
+    void updateIndexEntry(User user) {
+        UserIndexEntry entry = new UserIndexEntry(user);
+        if (!entry.equals(putIndexEntry(entry))) {
+            indexChanged = true;
+        }
+    }
+
+    /**
+     * Checks if a user may use the given email and phone number, which is
+     * always the case unless unique contact details are enforced.
+     *
+     * @param user The user taking the details, or null for a new user.
+     * @param email The email.
+     * @param phoneNumber The phone number.
+     * @return true if no other user has the email or phone number.
+     */
+    boolean canUseContactDetails(User user, String email, String phoneNumber) {
+        if (!uniqueContactDetails)
+            return true;
+        UUID id = user == null ? null : user.getId();
+        return !usedByOther(emailIndex, normalizeEmail(email), id)
+                && !usedByOther(phoneNumberIndex, normalizePhoneNumber(phoneNumber), id);
+    }
+
+    /**
+     * Changes the details of a user if the user may use the given email and
+     * phone number. The check and the change happen as one step, so two
+     * users can't claim the same contact details at once.
+     *
+     * @param user The user being changed.
+     * @param email The new email.
+     * @param phoneNumber The new phone number.
+     * @param change Sets the user's new details.
+     * @return true if the details were changed.
+     */
+    boolean changeDetails(User user, String email, String phoneNumber, Runnable change) {
+        ReentrantLock[] held = lock(getKey(user.getUsername()), normalizeEmail(email), normalizePhoneNumber(phoneNumber));
+        try {
+            if (!canUseContactDetails(user, email, phoneNumber))
+                return false;
+            change.run();
+            detailsChanged(user);
+            return true;
+        } finally {
+            unlock(held);
+        }
+    }
+
+    /**
+     * Updates the manifest entry and contact indexes of a user whose details
+     * changed. Users that aren't in the user store are ignored.
+     *
+     * @param user The user whose details changed.
+     */
+    void detailsChanged(User user) {
+        UserIndexEntry entry;
+        idLock.readLock().lock();
+        try {
+            entry = indexById.get(user.getId());
+        } finally {
+            idLock.readLock().unlock();
+        }
+        if (entry != null && getKey(entry.getUsername()).equals(getKey(user.getUsername())))
+            updateIndexEntry(user);
+    }
+
+    /**
+     * Returns whether the manifest has changed since it was last written.
+     *
+     * @return true if the manifest needs to be written again.
+     */
+    boolean isIndexChanged() {
+        return indexChanged;
+    }
+
+    /**
+     * Sets whether the manifest has changed since it was last written.
+     *
+     * @param indexChanged true if the manifest needs to be written again.
+     */
+    void setIndexChanged(boolean indexChanged) {
+        this.indexChanged = indexChanged;
+    }
+
+    /**
+     * Loads every account that has progress in the progress journal, so the
+     * progress can be written to its user file.
+     */
+    void loadJournaledUsers() {
+        for (UUID id : new ArrayList<>(pendingProgress.keySet())) {
+            if (getUserById(id) == null) {
+                pendingProgress.remove(id);
+            }
+        }
+    }
+
+    /**
+     * Returns a loaded user, loading it from the user store first if needed.
+     * Progress journaled for the user is applied as it is loaded. Threads
+     * loading the same account wait for each other, so it is only read once.
+     *
+     * @param id The UUID of the user.
+     * @return The User object, or null if the user has no file in the store.
+     */
+    private User loadUser(UUID id) {
+        User user = getLoadedUser(id);
+        if (user != null) {
+            return user;
+        }
+        ReentrantLock[] held = lock(id);
+        try {
+            user = getLoadedUser(id);
+            if (user != null) {
+                return user;
+            }
+            user = DataLoader.getUser(id);
+            if (user != null) {
+                ProgressJournal.apply(user, pendingProgress.remove(id));
+                putLoadedUser(user);
+            }
+            return user;
+        } finally {
+            unlock(held);
+        }
+    }
+
+    private User getLoadedUser(UUID id) {
+        idLock.readLock().lock();
+        try {
+            return loadedUsersById.get(id);
+        } finally {
+            idLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Records a loaded user in the loaded list and both of its indexes.
+     */
+    private void putLoadedUser(User user) {
+        idLock.writeLock().lock();
+        try {
+            users.add(user);
+            loadedUsers.put(getKey(user.getUsername()), user);
+            loadedUsersById.put(user.getId(), user);
+        } finally {
+            idLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Records a manifest entry under both its username and its id. Holds
+     * the username's lock, so the contact indexes always end up matching
+     * the entry stored last.
+     *
+     * @return the entry previously stored under the username, or null
+     */
+    private UserIndexEntry putIndexEntry(UserIndexEntry entry) {
+        ReentrantLock[] held = lock(getKey(entry.getUsername()));
+        try {
+            idLock.writeLock().lock();
+            try {
+                indexById.put(entry.getId(), entry);
+            } finally {
+                idLock.writeLock().unlock();
+            }
+            UserIndexEntry previous = index.put(getKey(entry.getUsername()), entry);
+            if (previous != null) {
+                removeFrom(emailIndex, normalizeEmail(previous.getEmail()), previous);
+                removeFrom(phoneNumberIndex, normalizePhoneNumber(previous.getPhoneNumber()), previous);
+            }
+            addTo(emailIndex, normalizeEmail(entry.getEmail()), entry);
+            addTo(phoneNumberIndex, normalizePhoneNumber(entry.getPhoneNumber()), entry);
+            searchIndex.put(entry);
+            return previous;
+        } finally {
+            unlock(held);
+        }
+    }
+
+    /**
+     * Locks the stripes of the given keys, skipping null keys. Stripes are
+     * always locked in the same order, so threads locking several keys can't
+     * deadlock.
+     *
+     * @return the locks held, to pass to unlock
+     */
+    private ReentrantLock[] lock(Object... keys) {
+        int[] stripes = new int[keys.length];
+        int count = 0;
+        for (Object key : keys) {
+            if (key != null) {
+                int hash = key.hashCode();
+                stripes[count++] = (hash ^ (hash >>> 16)) & (LOCK_STRIPES - 1);
+            }
+        }
+        Arrays.sort(stripes, 0, count);
+        ReentrantLock[] held = new ReentrantLock[count];
+        int heldCount = 0;
+        for (int i = 0; i < count; i++) {
+            if (i == 0 || stripes[i] != stripes[i - 1]) {
+                held[heldCount] = locks[stripes[i]];
+                held[heldCount++].lock();
+            }
+        }
+        return heldCount == count ? held : Arrays.copyOf(held, heldCount);
+    }
+
+    private static void unlock(ReentrantLock[] held) {
+        for (int i = held.length - 1; i >= 0; i--) {
+            held[i].unlock();
+        }
+    }
+
+    /**
+     * Adds an entry to a contact index. The entry lists are copied on write
+     * and never changed in place, so lookups never wait on an update.
+     */
+    private static void addTo(ConcurrentHashMap<String, List<UserIndexEntry>> contactIndex, String key, UserIndexEntry entry) {
+        if (key == null)
+            return;
+        contactIndex.compute(key, (k, entries) -> {
+            ArrayList<UserIndexEntry> copy = entries == null ? new ArrayList<>(1) : new ArrayList<>(entries);
+            copy.add(entry);
+            return Collections.unmodifiableList(copy);
+        });
+    }
+
+    private static void removeFrom(ConcurrentHashMap<String, List<UserIndexEntry>> contactIndex, String key, UserIndexEntry entry) {
+        if (key == null)
+            return;
+        contactIndex.computeIfPresent(key, (k, entries) -> {
+            ArrayList<UserIndexEntry> copy = new ArrayList<>(entries);
+            copy.removeIf(other -> other.getId().equals(entry.getId()));
+            return copy.isEmpty() ? null : Collections.unmodifiableList(copy);
+        });
+    }
+
+    private static boolean usedByOther(ConcurrentHashMap<String, List<UserIndexEntry>> contactIndex, String key, UUID id) {
+        if (key == null)
+            return false;
+        List<UserIndexEntry> entries = contactIndex.get(key);
+        if (entries == null)
+            return false;
+        for (UserIndexEntry entry : entries) {
+            if (!entry.getId().equals(id))
+                return true;
+        }
+        return false;
+    }
+
+    private ArrayList<User> getUsers(ConcurrentHashMap<String, List<UserIndexEntry>> contactIndex, String key) {
+        ArrayList<User> found = new ArrayList<>();
+        if (key == null)
+            return found;
+        for (UserIndexEntry entry : contactIndex.getOrDefault(key, Collections.emptyList())) {
+            User user = loadUser(entry.getId());
+            if (user != null)
+                found.add(user);
+        }
+        return found;
+    }
+
+    /**
+     * Normalizes an email for the email index: trimmed and lower case.
+     *
+     * @return the normalized email, or null if there is nothing to index
+     */
+    static String normalizeEmail(String email) {
+        if (email == null)
+            return null;
+        String normalized = email.trim().toLowerCase(Locale.ROOT);
+        return normalized.isEmpty() ? null : normalized;
+    }
+
+    /**
+     * Normalizes a phone number for the phone number index: its digits only.
+     *
+     * @return the normalized phone number, or null if there is nothing to index
+     */
+    static String normalizePhoneNumber(String phoneNumber) {
+        if (phoneNumber == null)
+            return null;
+        StringBuilder digits = new StringBuilder(phoneNumber.length());
+        for (int i = 0; i < phoneNumber.length(); i++) {
+            char c = phoneNumber.charAt(i);
+            if (c >= '0' && c <= '9')
+                digits.append(c);
+        }
+        return digits.length() == 0 ? null : digits.toString();
+    }
+
+    private static String getKey(String username) {
+        return username.toLowerCase(Locale.ROOT);
     }
 }
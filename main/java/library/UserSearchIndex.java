@@ -0,0 +1,243 @@
+package library;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Search index over the usernames and first and last names of the accounts in
+ * the user store manifest. Prefix matches come from sorted maps of the
+ * usernames and the names, and substring matches come from a trigram index,
+ * so a search only looks at accounts that can match instead of scanning them
+ * all. Results are ranked: an exact username first, then usernames starting
+ * with the query in alphabetical order, then first or last names starting
+ * with the query, then the remaining accounts containing the query anywhere.
+ * Searching stops as soon as enough results for the requested page have been
+ * found, so the cost of a search depends on the page asked for rather than
+ * on the number of accounts.
+ */
+public class UserSearchIndex {
+
+    private static final int GRAM_LENGTH = 3;
+
+    private UUIDMap<UserIndexEntry> entries;
+    private TreeMap<String, UUID> usernames;
+    private TreeMap<String, HashSet<UUID>> names;
+    private HashMap<String, HashSet<UUID>> trigrams;
+
+    /**
+     * Creates an empty search index.
+     */
+    public UserSearchIndex() {
+        entries = new UUIDMap<>();
+        usernames = new TreeMap<>();
+        names = new TreeMap<>();
+        trigrams = new HashMap<>();
+    }
+
+    /**
+     * Adds an account to the index, replacing what was indexed for it before.
+     *
+     * @param entry the account's manifest entry
+     */
+    public synchronized void put(UserIndexEntry entry) {
+        remove(entry.getId());
+        entries.put(entry.getId(), entry);
+
+        String username = normalize(entry.getUsername());
+        if (username != null) {
+            usernames.put(username, entry.getId());
+        }
+        for (String field : getFields(entry)) {
+            for (int i = 0; i + GRAM_LENGTH <= field.length(); i++) {
+                trigrams.computeIfAbsent(field.substring(i, i + GRAM_LENGTH), gram -> new HashSet<>()).add(entry.getId());
+            }
+        }
+        for (String name : getNames(entry)) {
+            names.computeIfAbsent(name, key -> new HashSet<>()).add(entry.getId());
+        }
+    }
+
+    /**
+     * Removes an account from the index.
+     *
+     * @param id the account's id
+     */
+    public synchronized void remove(UUID id) {
+        UserIndexEntry entry = entries.remove(id);
+        if (entry == null) {
+            return;
+        }
+        String username = normalize(entry.getUsername());
+        if (username != null) {
+            usernames.remove(username, id);
+        }
+        for (String field : getFields(entry)) {
+            for (int i = 0; i + GRAM_LENGTH <= field.length(); i++) {
+                removeFrom(trigrams, field.substring(i, i + GRAM_LENGTH), id);
+            }
+        }
+        for (String name : getNames(entry)) {
+            removeFrom(names, name, id);
+        }
+    }
+
+    /**
+     * Searches for accounts whose username, first name or last name contains
+     * the query, ignoring case. Queries shorter than three characters only
+     * match the start of a username or name.
+     *
+     * @param query the text to search for
+     * @param page the page of results, starting at 0
+     * @param pageSize the number of results per page
+     * @return the page of matching accounts, best match first
+     */
+    public synchronized ArrayList<UserIndexEntry> search(String query, int page, int pageSize) {
+        if (page < 0 || pageSize <= 0) {
+            throw new IllegalArgumentException("Page must not be negative and page size must be positive");
+        }
+        ArrayList<UserIndexEntry> results = new ArrayList<>();
+        String normalized = normalize(query);
+        if (normalized == null) {
+            return results;
+        }
+
+        int wanted = (page + 1) * pageSize;
+        LinkedHashSet<UUID> found = new LinkedHashSet<>();
+
+        UUID exact = usernames.get(normalized);
+        if (exact != null) {
+            found.add(exact);
+        }
+        for (UUID id : prefixRange(usernames, normalized).values()) {
+            if (found.size() >= wanted) {
+                break;
+            }
+            found.add(id);
+        }
+        for (HashSet<UUID> ids : prefixRange(names, normalized).values()) {
+            if (found.size() >= wanted) {
+                break;
+            }
+            found.addAll(ids);
+        }
+        if (found.size() < wanted && normalized.length() >= GRAM_LENGTH) {
+            addSubstringMatches(normalized, wanted, found);
+        }
+
+        int index = 0;
+        for (UUID id : found) {
+            if (index >= page * pageSize && index < wanted) {
+                results.add(entries.get(id));
+            }
+            index++;
+        }
+        return results;
+    }
+
+    /**
+     * Returns the number of accounts in the index.
+     *
+     * @return the account count
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Adds the accounts containing the query that haven't been found yet,
+     * until the wanted count is reached.
+     */
+    private void addSubstringMatches(String query, int wanted, LinkedHashSet<UUID> found) {
+        // Every trigram of the query has to be in a match, start from the rarest
+        HashSet<UUID> rarest = null;
+        ArrayList<HashSet<UUID>> postings = new ArrayList<>();
+        for (int i = 0; i + GRAM_LENGTH <= query.length(); i++) {
+            HashSet<UUID> ids = trigrams.get(query.substring(i, i + GRAM_LENGTH));
+            if (ids == null) {
+                return;
+            }
+            postings.add(ids);
+            if (rarest == null || ids.size() < rarest.size()) {
+                rarest = ids;
+            }
+        }
+
+        candidates:
+        for (UUID id : rarest) {
+            if (found.size() >= wanted) {
+                return;
+            }
+            if (found.contains(id)) {
+                continue;
+            }
+            for (HashSet<UUID> ids : postings) {
+                if (ids != rarest && !ids.contains(id)) {
+                    continue candidates;
+                }
+            }
+            if (contains(entries.get(id), query)) {
+                found.add(id);
+            }
+        }
+    }
+
+    private static boolean contains(UserIndexEntry entry, String query) {
+        for (String field : getFields(entry)) {
+            if (field.contains(query)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static <V> Map<String, V> prefixRange(TreeMap<String, V> map, String prefix) {
+        return map.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+    }
+
+    private static <K> void removeFrom(Map<K, HashSet<UUID>> map, K key, UUID id) {
+        HashSet<UUID> ids = map.get(key);
+        if (ids != null && ids.remove(id) && ids.isEmpty()) {
+            map.remove(key);
+        }
+    }
+
+    /**
+     * Returns the normalized username, first name and last name of an
+     * account, leaving out any that are missing.
+     */
+    private static ArrayList<String> getFields(UserIndexEntry entry) {
+        ArrayList<String> fields = new ArrayList<>(3);
+        for (String field : new String[] { entry.getUsername(), entry.getFirstName(), entry.getLastName() }) {
+            String normalized = normalize(field);
+            if (normalized != null) {
+                fields.add(normalized);
+            }
+        }
+        return fields;
+    }
+
+    private static ArrayList<String> getNames(UserIndexEntry entry) {
+        ArrayList<String> fields = new ArrayList<>(2);
+        for (String field : new String[] { entry.getFirstName(), entry.getLastName() }) {
+            String normalized = normalize(field);
+            if (normalized != null) {
+                fields.add(normalized);
+            }
+        }
+        return fields;
+    }
+
+    private static String normalize(String text) {
+        if (text == null) {
+            return null;
+        }
+        String normalized = text.trim().toLowerCase(Locale.ROOT);
+        return normalized.isEmpty() ? null : normalized;
+    }
+}
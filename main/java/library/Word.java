@@ -7,11 +7,11 @@ import java.util.UUID;
  */
 public class Word {
     
-    private UUID id;
-    private String text;
-    private String translation;
-    private String partOfSpeech;
-    private String exampleSentence;
+    private final UUID id;
+    private final String text;
+    private final String translation;
+    private final String partOfSpeech;
+    private final String exampleSentence;
     /**
      * Constructs a Word with the specified text, translation, part of speech, and example sentence.
      *
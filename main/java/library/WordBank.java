@@ -1,76 +1,70 @@
 package library;
 
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Random;
+import java.util.List;
 import java.util.Scanner;
+import java.util.SplittableRandom;
 
 import narration.Narrator;
 
 /**
  * WordBank class is a type of question where the user will be given a sentence
  * with an empty space, and has to choose a word from the bank that correctly
- * fills the space
+ * fills the space. The bank holds the answer and up to three other words that
+ * are a different part of speech, so only one word fits the sentence
  *
  * @author Cody Miller
  */
 public class WordBank implements Question {
 
+    private static final int BANK_SIZE = 4;
+
     private String answer;
     private String question;
     private ArrayList<Word> wordBank;
+    private AnswerMatcher answerMatcher;
 
     /**
      * Constructor for the WordrBank class, creates a random question based off
      * of list of testable words
      *
-     * @param words ArrayList of the lesson's quizzable words
+     * @param words the lesson's quizzable words, which aren't changed
      */
-    public WordBank(ArrayList<Word> words) {
-        Random rand = new Random();
-
-        Collections.shuffle(words);
-
-        Word answerWord = words.get(0);
-        this.answer = answerWord.getForeignWord();
-        this.question = answerWord.getExampleSentence();
-        this.wordBank = words;
-
-        for (int i = wordBank.size() - 1; i >= 0; i--) {
-            if (answerWord.getPartofSpeech().equalsIgnoreCase(wordBank.get(i).getPartofSpeech())) {
-                wordBank.remove(i);
-            }
-        }
-
-        wordBank.add(answerWord);
-
-        Collections.shuffle(this.wordBank);
+    public WordBank(List<Word> words) {
+        this(words, AnswerMatcher.EXPECTED_ONLY, QuestionEngine.getDefault().forCurrentThread());
     }
 
     /**
-     * Constructor for the WordBank class, creates a random question based off of a seed
+     * Constructor for the WordBank class, creates a random question based off
+     * of list of testable words, graded with the lesson's answer matcher
      *
-     * @param words ArrayList of the lesson's quizzable words
+     * @param words the lesson's quizzable words, which aren't changed
+     * @param answerMatcher the lesson's answer matcher
      */
-    public WordBank(ArrayList<Word> words, int seed) {
-        Random rand = new Random(seed);
-
-        Collections.shuffle(words,rand);
+    public WordBank(List<Word> words, AnswerMatcher answerMatcher) {
+        this(words, answerMatcher, QuestionEngine.getDefault().forCurrentThread());
+    }
 
-        Word answerWord = words.get(0);
+    /**
+     * Picks the answer, draws the other words of the bank from the words
+     * that are a different part of speech, and puts the answer in at a
+     * random place. The random stream is the question's, see
+     * QuestionEngine.
+     *
+     * @param words the lesson's quizzable words, which aren't changed
+     * @param answerMatcher the lesson's answer matcher
+     * @param rand the question's random stream
+     */
+    WordBank(List<Word> words, AnswerMatcher answerMatcher, SplittableRandom rand) {
+        this.answerMatcher = answerMatcher;
+        Word answerWord = WordSampler.pick(words, rand);
         this.answer = answerWord.getForeignWord();
         this.question = answerWord.getExampleSentence();
-        this.wordBank = words;
-
-        for (int i = wordBank.size() - 1; i >= 0; i--) {
-            if (answerWord.getPartofSpeech().equalsIgnoreCase(wordBank.get(i).getPartofSpeech())) {
-                wordBank.remove(i);
-            }
-        }
-
-        wordBank.add(answerWord);
 
-        Collections.shuffle(this.wordBank,rand);
+        String partOfSpeech = answerWord.getPartofSpeech();
+        this.wordBank = WordSampler.sample(words, BANK_SIZE - 1, rand,
+                word -> partOfSpeech == null || !partOfSpeech.equalsIgnoreCase(word.getPartofSpeech()));
+        wordBank.add(rand.nextInt(wordBank.size() + 1), answerWord);
     }
 
     /**
@@ -80,7 +74,7 @@ public class WordBank implements Question {
      * @return returns true if the answer is correct, false otherwise
      */
     public boolean checkAnswer(String answer) {
-        return this.answer.equalsIgnoreCase(answer);
+        return answerMatcher.matches(this.answer, answer);
     }
 
     /**
@@ -1,52 +1,76 @@
 package library;
 import java.util.ArrayList;
-import java.util.Random;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
 
 /**
- * Class for the list of words
+ * Class for the list of words. A word list can't be changed once it is made,
+ * so one list can be shared by every learner without locking
  * @author Cody Miller
  */
 public class WordList {
-    private ArrayList<Word> words;
+    private final List<Word> words;
 
     /**
-     * Constructor for the WordList.java
+     * Constructor for the WordList.java, copies the given words
      * @param words
      */
-    public WordList(ArrayList<Word> words) {
-        this.words = words;
+    public WordList(List<Word> words) {
+        this.words = Collections.unmodifiableList(new ArrayList<>(words));
     }
- 
+
     /**
-     * Adds a word to the wordlist
-     * @param word word to add
+     * Checks if the wordlist holds the given word. Words are matched by id,
+     * or by their text if they don't have an id, so a copy of a word counts
+     * as the same word
+     * @param word word to look for
+     * @return true if the word is in the list, false otherwise
      */
-    public void addWord(Word word) {
-        this.words.add(word);
+    public boolean contains(Word word) {
+        return contains(words, word);
     }
-    
+
     /**
-     * Removes a word from the wordlist
-     * @param word word to remove
+     * Checks if a list of words holds the given word, matched the same way as
+     * contains(Word)
+     * @param words the words to look in
+     * @param word word to look for
+     * @return true if the word is in the list, false otherwise
      */
-    public void removeWord(Word word) {
-        this.words.remove(word);
+    static boolean contains(List<Word> words, Word word) {
+        for (Word listWord : words) {
+            if (word.getId() != null ? word.getId().equals(listWord.getId())
+                    : listWord.getId() == null && word.getForeignWord().equals(listWord.getForeignWord())) {
+                return true;
+            }
+        }
+        return false;
     }
 
     /**
-     * Gets a random word from the wordlist
+     * Gets a random word from the wordlist, drawn from the default
+     * QuestionEngine's stream for the current thread
      * @return the random word
      */
     public Word getRandomWord() {
-        Random rand = new Random();
-        return words.get(rand.nextInt(getWordCount()));
+        return getRandomWord(QuestionEngine.getDefault().forCurrentThread());
+    }
+
+    /**
+     * Gets a random word from the wordlist
+     * @param random the random stream to draw from
+     * @return the random word
+     */
+    public Word getRandomWord(SplittableRandom random) {
+        return words.get(random.nextInt(getWordCount()));
     }
 
     /**
      * Accessor method for the wordlist
-     * @return the word listt
+     * @return the word list, which can't be changed
      */
-    public ArrayList<Word> getWords() {
+    public List<Word> getWords() {
         return words;
     }
 
@@ -0,0 +1,128 @@
+package library;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.Predicate;
+
+/**
+ * Picks distinct random words from a lesson's word list without copying or
+ * changing the list, so questions can be made from the shared catalog. Words
+ * are drawn with a partial Fisher-Yates shuffle of word positions, run over a
+ * scratch buffer kept for each thread. The buffer holds every position in
+ * order between draws, and a draw puts back the few positions it swapped, so
+ * drawing k words costs O(k) whatever the size of the lesson.
+ */
+public class WordSampler {
+
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    /**
+     * A thread's buffer of word positions, and the positions each step of
+     * the current draw swapped with so they can be put back.
+     */
+    private static class Scratch {
+
+        private int[] positions = new int[0];
+        private int[] swaps = new int[0];
+
+        private void ensureCapacity(int size) {
+            if (positions.length < size) {
+                int capacity = Math.max(size, positions.length * 2);
+                int[] grown = new int[capacity];
+                for (int i = 0; i < capacity; i++) {
+                    grown[i] = i;
+                }
+                positions = grown;
+                swaps = new int[capacity];
+            }
+        }
+    }
+
+    private WordSampler() {
+    }
+
+    /**
+     * Draws distinct random words.
+     *
+     * @param words the words to draw from, which aren't changed
+     * @param count the number of words wanted
+     * @param random the source of randomness
+     * @return count words, or every word if there are fewer, in random order
+     */
+    public static ArrayList<Word> sample(List<Word> words, int count, SplittableRandom random) {
+        return sample(words, count, random, null);
+    }
+
+    /**
+     * Draws distinct random words that pass a filter. Words are drawn in
+     * random order until enough pass, so the cost grows with the number of
+     * words the filter turns down.
+     *
+     * @param words the words to draw from, which aren't changed
+     * @param count the number of words wanted
+     * @param random the source of randomness
+     * @param filter the words that may be drawn, or null for any word
+     * @return up to count words that pass the filter, in random order
+     */
+    public static ArrayList<Word> sample(List<Word> words, int count, SplittableRandom random, Predicate<Word> filter) {
+        int size = words.size();
+        ArrayList<Word> sample = new ArrayList<>(Math.min(count, size));
+        if (count <= 0 || size == 0) {
+            return sample;
+        }
+
+        Scratch scratch = SCRATCH.get();
+        scratch.ensureCapacity(size);
+        int[] positions = scratch.positions;
+        int[] swaps = scratch.swaps;
+
+        int steps = 0;
+        while (steps < size && sample.size() < count) {
+            int swap = steps + random.nextInt(size - steps);
+            int position = positions[swap];
+            positions[swap] = positions[steps];
+            positions[steps] = position;
+            swaps[steps++] = swap;
+
+            Word word = words.get(position);
+            if (filter == null || filter.test(word)) {
+                sample.add(word);
+            }
+        }
+
+        // Undo the swaps, so the buffer is in order for the next draw
+        while (steps > 0) {
+            steps--;
+            int swap = swaps[steps];
+            int position = positions[swap];
+            positions[swap] = positions[steps];
+            positions[steps] = position;
+        }
+        return sample;
+    }
+
+    /**
+     * Draws one random word.
+     *
+     * @param words the words to draw from
+     * @param random the source of randomness
+     * @return the word, or null if there are no words
+     */
+    public static Word pick(List<Word> words, SplittableRandom random) {
+        return words.isEmpty() ? null : words.get(random.nextInt(words.size()));
+    }
+
+    /**
+     * Shuffles a short list in place with a Fisher-Yates shuffle.
+     *
+     * @param list the list to shuffle
+     * @param random the source of randomness
+     */
+    public static <T> void shuffle(List<T> list, SplittableRandom random) {
+        for (int i = list.size() - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            list.set(i, list.set(j, list.get(i)));
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package library;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Singleton inverted index over the text, translation and example sentence
+ * of every word in the catalog, across all languages. Text is split into
+ * tokens on anything that isn't a letter or digit, and folded to lower case
+ * with accents removed, so a query typed without accents still finds words
+ * written with them. Each token
+ * maps to a sorted list of postings, and each posting is the catalog
+ * position (language, unit, lesson and word) of a word containing the token.
+ * The index is built once when the catalog is loaded.
+ * <p>
+ * A walk fills new tables that only the walking thread sees, and they
+ * replace the published tables when the walk ends, so searches never see a
+ * half-built index and read the published tables without locking.
+ */
+public class WordSearchIndex implements CatalogVisitor {
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final int[] NO_POSTINGS = new int[0];
+
+    private volatile Tables tables;
+    private ArrayList<CatalogIndex.Position> buildingPostings;
+    private HashMap<String, int[]> building;
+    private HashMap<String, Integer> buildingSizes;
+
+    /**
+     * Holds the index, made the first time it is asked for
+     */
+    private static class Holder {
+
+        private static final WordSearchIndex INSTANCE = new WordSearchIndex();
+    }
+
+    /**
+     * The postings and the posting lists of every token of one walk of the
+     * catalog.
+     */
+    private static class Tables {
+
+        private final ArrayList<CatalogIndex.Position> postings;
+        private final HashMap<String, int[]> tokens;
+
+        private Tables(ArrayList<CatalogIndex.Position> postings, HashMap<String, int[]> tokens) {
+            this.postings = postings;
+            this.tokens = tokens;
+        }
+    }
+
+    private WordSearchIndex() {
+        tables = new Tables(new ArrayList<>(), new HashMap<>());
+    }
+
+    /**
+     * Returns the singleton instance of WordSearchIndex.
+     *
+     * @return The singleton instance of WordSearchIndex.
+     */
+    public static WordSearchIndex getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Finds the words whose text, translation or example sentence contains
+     * every token of the query.
+     *
+     * @param query the words to search for
+     * @return the catalog positions of the matching words, in catalog order
+     */
+    public ArrayList<CatalogIndex.Position> search(String query) {
+        Tables tables = this.tables;
+        ArrayList<CatalogIndex.Position> results = new ArrayList<>();
+        ArrayList<String> queryTokens = tokenize(query);
+        if (queryTokens.isEmpty()) {
+            return results;
+        }
+
+        int[] matches = null;
+        int matchCount = 0;
+        for (String token : queryTokens) {
+            int[] tokenPostings = tables.tokens.getOrDefault(token, NO_POSTINGS);
+            if (matches == null) {
+                matches = tokenPostings;
+                matchCount = tokenPostings.length;
+            } else {
+                matchCount = intersect(matches, matchCount, tokenPostings);
+            }
+            if (matchCount == 0) {
+                return results;
+            }
+            if (matches == tokenPostings) {
+                // Intersecting works in place, so don't write over the index
+                matches = matches.clone();
+            }
+        }
+
+        for (int i = 0; i < matchCount; i++) {
+            results.add(tables.postings.get(matches[i]));
+        }
+        return results;
+    }
+
+    /**
+     * Returns the number of distinct tokens in the index.
+     *
+     * @return the token count
+     */
+    public int getTokenCount() {
+        return tables.tokens.size();
+    }
+
+    /**
+     * Starts new tables for a walk of the catalog. Searches keep reading the
+     * published tables until the walk ends.
+     */
+    @Override
+    public void startCatalog() {
+        buildingPostings = new ArrayList<>();
+        building = new HashMap<>();
+        buildingSizes = new HashMap<>();
+    }
+
+    @Override
+    public void visitWord(LanguagesEnum language, int unit, int lesson, int position, Word word) {
+        int posting = buildingPostings.size();
+        buildingPostings.add(new CatalogIndex.Position(language, unit, lesson, position));
+        for (String text : new String[] { word.getForeignWord(), word.getTranslatedWord(), word.getExampleSentence() }) {
+            for (String token : tokenize(text)) {
+                add(token, posting);
+            }
+        }
+    }
+
+    /**
+     * Trims the posting lists filled by the walk and publishes them.
+     */
+    @Override
+    public void endCatalog() {
+        HashMap<String, int[]> tokens = new HashMap<>(building.size() * 2);
+        for (Map.Entry<String, int[]> entry : building.entrySet()) {
+            int size = buildingSizes.get(entry.getKey());
+            int[] tokenPostings = entry.getValue();
+            tokens.put(entry.getKey(), size == tokenPostings.length ? tokenPostings : Arrays.copyOf(tokenPostings, size));
+        }
+        tables = new Tables(buildingPostings, tokens);
+        buildingPostings = null;
+        building = null;
+        buildingSizes = null;
+    }
+
+    /**
+     * Splits text into folded tokens: lower case, accents removed.
+     *
+     * @param text the text, may be null
+     * @return the tokens, empty if there are none
+     */
+    public static ArrayList<String> tokenize(String text) {
+        ArrayList<String> result = new ArrayList<>();
+        if (text == null) {
+            return result;
+        }
+        for (String token : SEPARATORS.split(fold(text))) {
+            if (!token.isEmpty()) {
+                result.add(token);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Folds text for matching: lower case with accents and other combining
+     * marks removed.
+     *
+     * @param text the text
+     * @return the folded text
+     */
+    public static String fold(String text) {
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        return MARKS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Appends a posting to a token's list. Postings arrive in increasing
+     * order, so a word using a token twice is only listed once.
+     */
+    private void add(String token, int posting) {
+        int[] tokenPostings = building.get(token);
+        int size = tokenPostings == null ? 0 : buildingSizes.get(token);
+        if (size > 0 && tokenPostings[size - 1] == posting) {
+            return;
+        }
+        if (tokenPostings == null) {
+            tokenPostings = new int[4];
+        } else if (size == tokenPostings.length) {
+            tokenPostings = Arrays.copyOf(tokenPostings, size * 2);
+        }
+        tokenPostings[size] = posting;
+        building.put(token, tokenPostings);
+        buildingSizes.put(token, size + 1);
+    }
+
+    /**
+     * Keeps the postings in the first count entries of matches that are also
+     * in other, both being sorted.
+     *
+     * @return the number of postings kept
+     */
+    private static int intersect(int[] matches, int count, int[] other) {
+        int kept = 0;
+        int j = 0;
+        for (int i = 0; i < count && j < other.length; i++) {
+            while (j < other.length && other[j] < matches[i]) {
+                j++;
+            }
+            if (j < other.length && other[j] == matches[i]) {
+                matches[kept++] = matches[i];
+            }
+        }
+        return kept;
+    }
+}
@@ -0,0 +1,69 @@
+package library;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.UUID;
+
+import org.json.simple.parser.JSONParser;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Saves a user and loads it back the way DataWriter and DataLoader do, to
+ * check that problem words survive the trip whether or not they are still
+ * in the catalog.
+ */
+public class UserProblemWordRoundTripTest {
+
+    private static User roundTrip(User user) throws Exception {
+        String json = DataWriter.getUserJSON(user).toJSONString();
+        ArrayList<User> users = new ArrayList<>();
+        new JSONParser().parse(new StringReader(json), new UserContentHandler(users, true));
+        assertEquals(1, users.size());
+        return users.get(0);
+    }
+
+    private static User newUser() {
+        Language language = LanguageList.getInstance().getLanguages().get(0);
+        Unit unit = language.getUnits().get(0);
+        return new User("Test", "User", "test@example.com", "5555555555", "roundtrip", "password",
+                language, unit.getId(), unit.getLessons().get(0).getId());
+    }
+
+    private static Word findProblemWord(User user, UUID id) {
+        for (Word word : user.getProblemWordList().getWords()) {
+            if (id.equals(word.getId())) {
+                return word;
+            }
+        }
+        return null;
+    }
+
+    @Test
+    public void testCatalogProblemWordSurvivesRoundTrip() throws Exception {
+        Word catalogWord = LanguageList.getInstance().getLanguages().get(0).getUnits().get(0)
+                .getLessons().get(0).getWords().get(0);
+        User user = newUser();
+        user.addProblemWord(catalogWord);
+
+        Word loaded = findProblemWord(roundTrip(user), catalogWord.getId());
+        assertNotNull(loaded);
+        assertEquals(catalogWord.getForeignWord(), loaded.getForeignWord());
+    }
+
+    @Test
+    public void testUnresolvedProblemWordSurvivesRoundTrip() throws Exception {
+        Word removedWord = new Word(UUID.randomUUID(), "palabra", "word", "noun", "Una palabra.");
+        User user = newUser();
+        user.addProblemWord(removedWord);
+
+        Word loaded = findProblemWord(roundTrip(user), removedWord.getId());
+        assertNotNull(loaded);
+        assertEquals("palabra", loaded.getForeignWord());
+        assertEquals("word", loaded.getTranslatedWord());
+        assertEquals("noun", loaded.getPartofSpeech());
+        assertEquals("Una palabra.", loaded.getExampleSentence());
+    }
+}